@@ -0,0 +1,82 @@
+package com.chess.benchmark;
+
+import com.chess.config.ChannelExecutors;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the STOMP inbound channel: {@code connections} clients each send one frame at the
+ * same moment, and every handler blocks for {@code blockMillis} as a move does on JDBC.
+ * The score is the time until all of them are served, i.e. the latency of the slowest frame of a
+ * burst; the sample mode reports its p99 across bursts.
+ * <p>
+ * This measures how the channel executor dispatches blocking handlers, not how many WebSocket
+ * connections a node can hold: no sockets are opened and no session state is kept. See
+ * {@link ConnectionLoadTest} for that.
+ * {@code threads=virtual} needs Java 21: {@code mvn -Pjava21,jmh compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ChannelExecutorBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"100", "1000", "5000"})
+    public int connections;
+
+    @Param({"5"})
+    public int blockMillis;
+
+    private ThreadPoolTaskExecutor executor;
+    private ExecutorSubscribableChannel inboundChannel;
+    private volatile CountDownLatch served;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(threads)
+                ? ChannelExecutors.virtualThreads("ws-inbound-", 10_000)
+                : defaultInboundPool();
+        executor.initialize();
+        inboundChannel = new ExecutorSubscribableChannel(executor);
+        inboundChannel.subscribe(message -> {
+            try {
+                Thread.sleep(blockMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            served.countDown();
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void serveAllConnections() throws InterruptedException {
+        served = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            inboundChannel.send(MessageBuilder.withPayload(i).build());
+        }
+        served.await();
+    }
+
+    // What Spring configures for clientInboundChannel when no executor is registered
+    private static ThreadPoolTaskExecutor defaultInboundPool() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ws-inbound-");
+        executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        return executor;
+    }
+}
@@ -0,0 +1,193 @@
+package com.chess.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection capacity test against a running server: opens {@code connections} STOMP sessions
+ * over the SockJS {@code /ws} endpoint at the same moment, then has every session ask for the
+ * lobby snapshot at once for {@code rounds} rounds. Reports how many sessions connected, the
+ * connect latency and the snapshot round trip under that load.
+ * <p>
+ * Unlike {@link ChannelExecutorBenchmark} this goes through real sockets, the handshake, the
+ * auth interceptor and the inbound channel. Start the server (with or without
+ * {@code spring.threads.virtual.enabled}), then run:
+ * <pre>
+ * mvn -Pjmh compile exec:exec -Djmh.main=com.chess.benchmark.ConnectionLoadTest \
+ *     -Djmh.args="--url http://localhost:8080 --connections 1000"
+ * </pre>
+ * All sessions log in as one user ({@code --email}, {@code --password}; the seeded test user by
+ * default), so presence changes stay small and the numbers reflect the transport.
+ */
+public class ConnectionLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        int connections = Integer.parseInt(options.getOrDefault("connections", "1000"));
+        int rounds = Integer.parseInt(options.getOrDefault("rounds", "5"));
+        long timeoutSeconds = Long.parseLong(options.getOrDefault("timeout", "60"));
+        String token = login(url, options.getOrDefault("email", "alice@example.com"),
+                options.getOrDefault("password", "Password1!"));
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.initialize();
+        SockJsClient sockJsClient = new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient())));
+        WebSocketStompClient client = new WebSocketStompClient(sockJsClient);
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        client.setTaskScheduler(scheduler);
+
+        List<StompSession> sessions = new ArrayList<>();
+        try {
+            connect(client, url + "/ws?token=" + token, connections, timeoutSeconds, sessions);
+            for (int round = 1; round <= rounds && !sessions.isEmpty(); round++) {
+                roundTrip(sessions, round, timeoutSeconds);
+            }
+        } finally {
+            sessions.forEach(session -> {
+                if (session.isConnected()) {
+                    session.disconnect();
+                }
+            });
+            sockJsClient.stop();
+            scheduler.shutdown();
+        }
+    }
+
+    private static void connect(WebSocketStompClient client, String url, int connections,
+                                long timeoutSeconds, List<StompSession> sessions) throws InterruptedException {
+        long[] latencies = new long[connections];
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<StompSession>> futures = new ArrayList<>(connections);
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            int index = i;
+            long begin = System.nanoTime();
+            futures.add(client.connectAsync(url, new WebSocketHttpHeaders(), new StompSessionHandlerAdapter() {
+                    })
+                    .whenComplete((session, error) -> {
+                        if (error != null) {
+                            failed.incrementAndGet();
+                        } else {
+                            latencies[index] = System.nanoTime() - begin;
+                        }
+                    }));
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+        try {
+            all.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // Failures are counted below
+        }
+        long elapsed = System.nanoTime() - start;
+        for (CompletableFuture<StompSession> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                sessions.add(future.join());
+            }
+        }
+        long[] connected = Arrays.stream(latencies).filter(latency -> latency > 0).toArray();
+        System.out.printf("connect: %d of %d sessions, %d failed, all within %d ms; latency %s%n",
+                sessions.size(), connections, failed.get(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                percentiles(connected));
+    }
+
+    private static void roundTrip(List<StompSession> sessions, int round, long timeoutSeconds)
+            throws InterruptedException {
+        long[] latencies = new long[sessions.size()];
+        CountDownLatch answered = new CountDownLatch(sessions.size());
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions.size(); i++) {
+            int index = i;
+            long begin = System.nanoTime();
+            // Answered by the @SubscribeMapping on the inbound channel, like any client frame
+            StompSession.Subscription[] subscription = new StompSession.Subscription[1];
+            subscription[0] = sessions.get(i).subscribe("/app/lobby/presence", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return JsonNode.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    latencies[index] = System.nanoTime() - begin;
+                    subscription[0].unsubscribe();
+                    answered.countDown();
+                }
+            });
+        }
+        boolean complete = answered.await(timeoutSeconds, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+        long[] served = Arrays.stream(latencies).filter(latency -> latency > 0).toArray();
+        System.out.printf("round %d: %d of %d answered%s in %d ms; latency %s%n", round, served.length,
+                sessions.size(), complete ? "" : " (timed out)", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                percentiles(served));
+    }
+
+    private static String percentiles(long[] nanos) {
+        if (nanos.length == 0) {
+            return "n/a";
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                millis(sorted, 0.50), millis(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double millis(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String login(String url, String email, String password) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(Map.of("email", email, "password", password));
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create(url + "/api/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        return mapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
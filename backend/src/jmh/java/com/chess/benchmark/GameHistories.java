@@ -0,0 +1,87 @@
+package com.chess.benchmark;
+
+import com.chess.engine.Bitboards;
+import com.chess.engine.MoveGenerator;
+import com.chess.engine.Moves;
+import com.chess.engine.Piece;
+import com.chess.engine.Position;
+import com.chess.model.Move;
+import com.chess.service.ChessValidationService;
+import com.chess.service.MoveResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fixtures shared by the benchmarks: the standard perft positions and reproducible
+ * random games built from legal moves.
+ */
+public final class GameHistories {
+
+    public static final Map<String, String> STANDARD_POSITIONS = Map.of(
+        "startpos", Position.INITIAL_FEN,
+        "kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+    );
+
+    private GameHistories() {
+    }
+
+    public static Position standardPosition(String name) {
+        String fen = STANDARD_POSITIONS.get(name);
+        if (fen == null) {
+            throw new IllegalArgumentException("Unknown position: " + name);
+        }
+        return Position.fromFen(fen);
+    }
+
+    /**
+     * Plays random legal moves from the initial position until the game has
+     * {@code plies} moves. Games that end early are discarded and replayed with the
+     * next seed, so the same seed always yields the same history.
+     */
+    public static List<Move> randomGame(long seed, int plies) {
+        ChessValidationService validationService = new ChessValidationService();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        for (long attempt = seed; ; attempt++) {
+            Random random = new Random(attempt);
+            Position position = Position.initial();
+            List<Move> history = new ArrayList<>(plies);
+
+            while (history.size() < plies) {
+                int count = MoveGenerator.generateLegal(position, moves);
+                if (count == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(count)];
+                String from = Bitboards.squareName(Moves.from(move));
+                String to = Bitboards.squareName(Moves.to(move));
+                String promotion = Moves.isPromotion(move)
+                        ? Piece.typeLetter(Moves.promotionType(move))
+                        : null;
+                boolean whiteToMove = position.sideToMove() == Piece.WHITE;
+
+                MoveResult result = validationService.validateAndApply(position, from, to, whiteToMove, promotion);
+                history.add(Move.builder()
+                        .playerId(whiteToMove ? 1L : 2L)
+                        .fromSquare(from)
+                        .toSquare(to)
+                        .piece(result.getPiece())
+                        .capturedPiece(result.getCapturedPiece())
+                        .promotion(result.getPromotion())
+                        .san(result.getSan())
+                        .moveNumber(history.size() + 1)
+                        .build());
+            }
+
+            if (history.size() == plies) {
+                return history;
+            }
+        }
+    }
+}
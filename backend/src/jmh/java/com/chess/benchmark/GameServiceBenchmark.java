@@ -0,0 +1,167 @@
+package com.chess.benchmark;
+
+import com.chess.dto.MoveDto;
+import com.chess.dto.MoveRequest;
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.model.User;
+import com.chess.repository.GameRepository;
+import com.chess.repository.MoveRepository;
+import com.chess.repository.UserRepository;
+import com.chess.service.ChessValidationService;
+import com.chess.service.DisplayNameService;
+import com.chess.service.GameClockService;
+import com.chess.service.GameService;
+import com.chess.service.GameStateCache;
+import com.chess.service.MoveJournal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link GameService#makeMove}: a real service and repositories on an
+ * in-memory H2 database, with a messaging template that drops every message.
+ *
+ * Each invocation plays move {@code moveNumber} of a stored game, after which the move is
+ * deleted again so every sample starts from the same state. With {@code cache=cold} the
+ * position cache is emptied first, which measures the replay-from-history path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameServiceBenchmark {
+
+    @Param({"1", "40", "150"})
+    public int moveNumber;
+
+    @Param({"warm", "cold"})
+    public String cache;
+
+    private ConfigurableApplicationContext context;
+    private GameService gameService;
+    private GameRepository gameRepository;
+    private GameStateCache gameStateCache;
+    private JdbcTemplate jdbcTemplate;
+
+    private Long gameId;
+    private Long playerId;
+    private MoveRequest request;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {
+        SecurityAutoConfiguration.class,
+        UserDetailsServiceAutoConfiguration.class
+    })
+    @EntityScan("com.chess.model")
+    @EnableJpaRepositories("com.chess.repository")
+    @Import({GameService.class, ChessValidationService.class, GameStateCache.class, DisplayNameService.class,
+        MoveJournal.class, GameClockService.class})
+    static class BenchmarkConfig {
+
+        @Bean
+        SimpMessagingTemplate messagingTemplate() {
+            return new SimpMessagingTemplate((message, timeout) -> true);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(BenchmarkConfig.class)
+                .web(WebApplicationType.NONE)
+                // Passed as arguments so they take precedence over application.yml
+                .run(
+                    "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.sql.init.mode=never",
+                    "--spring.main.banner-mode=off",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.chess=WARN",
+                    "--logging.level.org.springframework=WARN"
+                );
+
+        gameService = context.getBean(GameService.class);
+        gameRepository = context.getBean(GameRepository.class);
+        gameStateCache = context.getBean(GameStateCache.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User white = userRepository.save(user("white@bench.local", "White"));
+        User black = userRepository.save(user("black@bench.local", "Black"));
+
+        List<Move> history = GameHistories.randomGame(42L, moveNumber);
+        boolean whiteToMove = moveNumber % 2 == 1;
+
+        Game game = gameRepository.save(Game.builder()
+                .whitePlayerId(white.getId())
+                .blackPlayerId(black.getId())
+                .status(Game.GameStatus.IN_PROGRESS)
+                .currentTurn(whiteToMove ? Game.PlayerColor.WHITE : Game.PlayerColor.BLACK)
+                .moveCount(moveNumber - 1)
+                .build());
+        gameId = game.getId();
+        playerId = whiteToMove ? white.getId() : black.getId();
+
+        MoveRepository moveRepository = context.getBean(MoveRepository.class);
+        for (Move move : history.subList(0, moveNumber - 1)) {
+            move.setGameId(gameId);
+            move.setPlayerId(move.getMoveNumber() % 2 == 1 ? white.getId() : black.getId());
+        }
+        moveRepository.saveAll(history.subList(0, moveNumber - 1));
+
+        Move next = history.get(moveNumber - 1);
+        request = new MoveRequest();
+        request.setFrom(next.getFromSquare());
+        request.setTo(next.getToSquare());
+        request.setPromotion(next.getPromotion());
+    }
+
+    @Setup(Level.Invocation)
+    public void resetGame() {
+        jdbcTemplate.update("DELETE FROM moves WHERE game_id = ? AND move_number >= ?", gameId, moveNumber);
+        jdbcTemplate.update("UPDATE games SET move_count = ?, current_turn = ?, status = 'IN_PROGRESS', "
+                + "winner_id = NULL, completed_at = NULL WHERE id = ?",
+                moveNumber - 1, moveNumber % 2 == 1 ? "WHITE" : "BLACK", gameId);
+
+        gameStateCache.evict(gameId);
+        if ("warm".equals(cache)) {
+            gameStateCache.getPosition(gameRepository.findById(gameId).orElseThrow());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public MoveDto makeMove() {
+        return gameService.makeMove(gameId, playerId, request);
+    }
+
+    private static User user(String email, String displayName) {
+        return User.builder()
+                .email(email)
+                .passwordHash("benchmark")
+                .displayName(displayName)
+                .online(false)
+                .build();
+    }
+}
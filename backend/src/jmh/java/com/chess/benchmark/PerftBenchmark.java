@@ -0,0 +1,54 @@
+package com.chess.benchmark;
+
+import com.chess.engine.Perft;
+import com.chess.engine.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generator throughput: perft(1..5) from the standard positions.
+ *
+ * Besides the usual ops/s score, the {@code nodes} auxiliary counter reports
+ * leaf nodes per second, which is the number to compare across changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({"startpos", "kiwipete", "position3", "position4", "position5"})
+    public String position;
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int depth;
+
+    private Position root;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        root = GameHistories.standardPosition(position);
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        // perft makes and unmakes every move, so the root is back where it started
+        long nodes = Perft.perft(root, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
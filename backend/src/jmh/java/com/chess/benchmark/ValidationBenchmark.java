@@ -0,0 +1,56 @@
+package com.chess.benchmark;
+
+import com.chess.engine.Position;
+import com.chess.model.Move;
+import com.chess.service.ChessValidationService;
+import com.chess.service.MoveResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChessValidationService} throughput at different game lengths: validating
+ * and applying the next move on a cached position, and rebuilding a board from
+ * the stored move history (what a cache miss costs).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"1", "40", "150"})
+    public int moveNumber;
+
+    private final ChessValidationService validationService = new ChessValidationService();
+
+    private List<Move> history;
+    private Position beforeLastMove;
+    private Position scratch;
+    private Move lastMove;
+    private boolean whiteToMove;
+
+    @Setup
+    public void setUp() {
+        history = GameHistories.randomGame(42L, moveNumber);
+        beforeLastMove = validationService.reconstructBoard(history.subList(0, moveNumber - 1));
+        scratch = beforeLastMove.copy();
+        lastMove = history.get(moveNumber - 1);
+        whiteToMove = moveNumber % 2 == 1;
+    }
+
+    @Benchmark
+    public MoveResult validateAndApply() {
+        scratch.copyFrom(beforeLastMove);
+        return validationService.validateAndApply(scratch, lastMove.getFromSquare(), lastMove.getToSquare(),
+                whiteToMove, lastMove.getPromotion());
+    }
+
+    @Benchmark
+    public Position reconstructBoard() {
+        return validationService.reconstructBoard(history);
+    }
+}
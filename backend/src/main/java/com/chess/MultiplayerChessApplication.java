@@ -2,6 +2,7 @@ package com.chess;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main application entry point for Multiplayer Chess Backend.
@@ -13,6 +14,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - H2/PostgreSQL persistence
  */
 @SpringBootApplication
+@EnableScheduling
 public class MultiplayerChessApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,30 @@
+package com.chess.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Publish/subscribe channel that carries broker messages between backend nodes.
+ *
+ * Used when {@code chess.broker.mode} is {@code bus}: every node keeps its own simple broker and
+ * {@link BrokerBusForwarder} copies messages published on one node to the brokers of all the others.
+ * In {@code relay} mode {@link StompRelayBrokerBus} runs it over the external broker. In both modes
+ * the nodes also use it for membership, game command forwarding and presence.
+ * An implementation delivers every envelope to every subscriber, including the publishing node,
+ * and preserves the order in which one node published.
+ */
+public interface BrokerBus {
+
+    void publish(Envelope envelope);
+
+    void subscribe(Consumer<Envelope> listener);
+
+    /**
+     * A broker message in transport form: the node that published it, its destination,
+     * its STOMP headers, content type and serialized payload.
+     */
+    record Envelope(String origin, String destination, Map<String, List<String>> nativeHeaders,
+                    String contentType, byte[] payload) {
+    }
+}
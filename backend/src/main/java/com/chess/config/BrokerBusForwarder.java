@@ -0,0 +1,123 @@
+package com.chess.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.util.List;
+
+/**
+ * Copies broker messages between nodes over a {@link BrokerBus}.
+ *
+ * As an interceptor on the local brokerChannel it publishes every /topic and /queue message sent
+ * on this node. Envelopes from other nodes are sent into the local brokerChannel, marked so they are
+ * not published again, so their subscribers receive them as if the message had been sent here.
+ * <p>
+ * {@code convertAndSendToUser} for a user with no session on this node is sent to
+ * {@link #USER_DESTINATION_BROADCAST}, forwarded like any topic, and resolved by the user destination
+ * handler of the node the user is connected to. That handler only accepts broadcasts carrying a
+ * session id, so forwarded messages are given one.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.broker.mode", havingValue = "bus")
+@Slf4j
+public class BrokerBusForwarder implements ChannelInterceptor, SmartInitializingSingleton {
+
+    public static final String USER_DESTINATION_BROADCAST = "/topic/unresolved-user-destination";
+
+    static final String FORWARDED_FROM_HEADER = "chessForwardedFrom";
+
+    private final BrokerBus brokerBus;
+    private final MessageChannel brokerChannel;
+    private final String nodeId;
+    private final List<String> localOnlyDestinations;
+    private final ObjectProvider<UserDestinationMessageHandler> userDestinationHandler;
+
+    public BrokerBusForwarder(BrokerBus brokerBus,
+                              @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+                              @Value("${chess.cluster.node-id:${random.uuid}}") String nodeId,
+                              @Value("${chess.broker.bus.local-only-destinations:}") List<String> localOnlyDestinations,
+                              ObjectProvider<UserDestinationMessageHandler> userDestinationHandler) {
+        this.brokerBus = brokerBus;
+        this.brokerChannel = brokerChannel;
+        this.nodeId = nodeId;
+        this.localOnlyDestinations = localOnlyDestinations;
+        this.userDestinationHandler = userDestinationHandler;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        brokerBus.subscribe(this::receive);
+    }
+
+    /**
+     * The simple broker registry has no user broadcast setting, so it is set on the handler directly
+     * once the messaging beans exist.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        userDestinationHandler.ifAvailable(handler -> handler.setBroadcastDestination(USER_DESTINATION_BROADCAST));
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || headers.containsKey(FORWARDED_FROM_HEADER)
+                || !isShared(destination)) {
+            return message;
+        }
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            log.warn("Not forwarding {}: payload is not serialized", destination);
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        brokerBus.publish(new BrokerBus.Envelope(
+                nodeId,
+                destination,
+                accessor.toNativeHeaderMap(),
+                contentType != null ? contentType.toString() : null,
+                payload));
+        return message;
+    }
+
+    void receive(BrokerBus.Envelope envelope) {
+        if (nodeId.equals(envelope.origin()) || !isShared(envelope.destination())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.destination());
+        accessor.setSessionId("bus-" + envelope.origin());
+        envelope.nativeHeaders().forEach((name, values) -> values.forEach(value -> accessor.addNativeHeader(name, value)));
+        if (envelope.contentType() != null) {
+            accessor.setContentType(MimeType.valueOf(envelope.contentType()));
+        }
+        accessor.setHeader(FORWARDED_FROM_HEADER, envelope.origin());
+        brokerChannel.send(MessageBuilder.createMessage(envelope.payload(), accessor.getMessageHeaders()));
+    }
+
+    private boolean isShared(String destination) {
+        if (destination == null || !(destination.startsWith("/topic/") || destination.startsWith("/queue/"))) {
+            return false;
+        }
+        return localOnlyDestinations.stream().noneMatch(destination::startsWith);
+    }
+}
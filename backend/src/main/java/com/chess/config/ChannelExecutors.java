@@ -0,0 +1,28 @@
+package com.chess.config;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for the STOMP client channels.
+ *
+ * Spring runs {@code @MessageMapping} handlers on the inbound channel's pool, sized to twice the
+ * CPU count, so a handful of moves blocked on JDBC can hold up every other connection. The virtual
+ * variant starts a virtual thread per message instead, up to {@code maxConcurrency} at a time.
+ * It needs Java 21; on older runtimes creating it fails.
+ */
+public final class ChannelExecutors {
+
+    private ChannelExecutors() {
+    }
+
+    public static ThreadPoolTaskExecutor virtualThreads(String threadNamePrefix, int maxConcurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        // Virtual threads are cheap to start, so idle ones are not kept around
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(1);
+        return executor;
+    }
+}
@@ -0,0 +1,40 @@
+package com.chess.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link BrokerBus} that delivers envelopes synchronously to subscribers in the same JVM.
+ *
+ * On a single node it only loops messages back, which the forwarder ignores. Several nodes
+ * sharing one instance behave like a cluster, which is how the multi-node tests run.
+ * Replace this bean with one backed by an external pub/sub system to span processes.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.broker.mode", havingValue = "bus")
+@Slf4j
+public class InProcessBrokerBus implements BrokerBus {
+
+    private final List<Consumer<Envelope>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Envelope envelope) {
+        for (Consumer<Envelope> listener : listeners) {
+            try {
+                listener.accept(envelope);
+            } catch (RuntimeException e) {
+                log.error("Broker bus listener failed for {}", envelope.destination(), e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Envelope> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,28 @@
+package com.chess.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Identity carried by a verified JWT: the user's email as subject, their id and the token expiry.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements Principal {
+
+    private final String username;
+    private final Long userId;
+    private final Instant expiresAt;
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public boolean isExpired() {
+        return !Instant.now().isBefore(expiresAt);
+    }
+}
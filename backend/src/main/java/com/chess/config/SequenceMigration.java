@@ -0,0 +1,68 @@
+package com.chess.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Brings databases created before ids came from sequences up to date, on every startup.
+ *
+ * With {@code ddl-auto: update} Hibernate adds the id sequences to an existing database starting
+ * at 1, below ids that are already taken. Each sequence is moved past the largest id of its table.
+ * Hibernate's pooled optimizer hands out the {@code allocationSize} ids ending at the value it
+ * reads, so the sequence restarts one block above the largest id. Games that predate optimistic
+ * locking get version 0, since Hibernate cannot update a row whose version is NULL.
+ * <p>
+ * Runs once the schema is updated and before anything writes, such as the move journal replay.
+ */
+@Component
+@Slf4j
+public class SequenceMigration {
+
+    // Table → sequence; all of them use an allocationSize of 50
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users", "users_seq",
+            "games", "games_seq",
+            "moves", "moves_seq",
+            "invitations", "invitations_seq");
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public SequenceMigration(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    @PostConstruct
+    public void migrate() {
+        SEQUENCES.forEach(this::advancePastExistingIds);
+        int versioned = jdbcTemplate.update("UPDATE games SET version = 0 WHERE version IS NULL");
+        if (versioned > 0) {
+            log.info("Set version 0 on {} games created before optimistic locking", versioned);
+        }
+    }
+
+    private void advancePastExistingIds(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // Reading the next value costs one block of ids, which is cheaper than a dialect-specific lookup
+        Long next = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        if (next != null && next - ALLOCATION_SIZE >= maxId) {
+            return;
+        }
+        long restart = maxId + ALLOCATION_SIZE;
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart);
+        log.info("Moved {} from {} to {}, past the largest id in {}", sequence, next, restart, table);
+    }
+}
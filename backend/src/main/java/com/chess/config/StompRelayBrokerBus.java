@@ -0,0 +1,177 @@
+package com.chess.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * {@link BrokerBus} over the external STOMP broker used in {@code relay} mode.
+ *
+ * Client messages already reach every node through the broker; this bus carries what the nodes
+ * tell each other (membership heartbeats, forwarded game commands, presence). Every node
+ * subscribes to one broker topic, {@code chess.broker.relay.bus-destination}, and publishes
+ * envelopes to it as JSON. Publishes are serialized, so the broker sees them in the order they
+ * were made, and received envelopes are handed to subscribers on one thread in arrival order.
+ * While the connection is down envelopes are dropped; it is retried every
+ * {@code chess.broker.relay.bus-reconnect-interval} ms and the heartbeats rebuild the membership.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.broker.mode", havingValue = "relay")
+@Slf4j
+public class StompRelayBrokerBus implements BrokerBus {
+
+    private final ReactorNettyTcpStompClient client;
+    private final String destination;
+    private final StompHeaders connectHeaders;
+    private final long reconnectIntervalMillis;
+    private final ObjectMapper objectMapper;
+
+    private final List<Consumer<Envelope>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "broker-bus");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile StompSession session;
+    private volatile boolean closed;
+
+    public StompRelayBrokerBus(@Value("${chess.broker.relay.host:localhost}") String host,
+                               @Value("${chess.broker.relay.port:61613}") int port,
+                               @Value("${chess.broker.relay.login:guest}") String login,
+                               @Value("${chess.broker.relay.passcode:guest}") String passcode,
+                               @Value("${chess.broker.relay.bus-destination:/topic/chess-cluster-bus}") String destination,
+                               @Value("${chess.broker.relay.bus-reconnect-interval:5000}") long reconnectIntervalMillis,
+                               ObjectMapper objectMapper) {
+        this.client = new ReactorNettyTcpStompClient(host, port);
+        this.client.setMessageConverter(new ByteArrayMessageConverter());
+        this.destination = destination;
+        this.connectHeaders = new StompHeaders();
+        this.connectHeaders.setLogin(login);
+        this.connectHeaders.setPasscode(passcode);
+        this.reconnectIntervalMillis = reconnectIntervalMillis;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void connect() {
+        if (closed) {
+            return;
+        }
+        // A failed attempt ends in handleTransportError, which schedules the next one
+        client.connectAsync(connectHeaders, new SessionHandler());
+    }
+
+    @PreDestroy
+    void close() {
+        closed = true;
+        StompSession current = session;
+        if (current != null && current.isConnected()) {
+            current.disconnect();
+        }
+        client.shutdown();
+        executor.shutdown();
+    }
+
+    @Override
+    public synchronized void publish(Envelope envelope) {
+        StompSession current = session;
+        if (current == null || !current.isConnected()) {
+            log.debug("Broker bus not connected, dropping envelope for {}", envelope.destination());
+            return;
+        }
+        try {
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            current.send(headers, objectMapper.writeValueAsBytes(envelope));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Broker bus could not publish to {}: {}", envelope.destination(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Envelope> listener) {
+        listeners.add(listener);
+    }
+
+    private void scheduleReconnect() {
+        if (!closed) {
+            executor.schedule(this::connect, reconnectIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void deliver(Envelope envelope) {
+        for (Consumer<Envelope> listener : listeners) {
+            try {
+                listener.accept(envelope);
+            } catch (RuntimeException e) {
+                log.error("Broker bus listener failed for {}", envelope.destination(), e);
+            }
+        }
+    }
+
+    private class SessionHandler extends StompSessionHandlerAdapter {
+
+        @Override
+        public void afterConnected(StompSession connected, StompHeaders connectedHeaders) {
+            connected.subscribe(destination, this);
+            session = connected;
+            log.info("Broker bus connected, subscribed to {}", destination);
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return byte[].class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            Envelope envelope;
+            try {
+                envelope = objectMapper.readValue((byte[]) payload, Envelope.class);
+            } catch (IOException e) {
+                log.error("Dropping unreadable broker bus message", e);
+                return;
+            }
+            // Off the network thread: listeners run game commands and database queries
+            executor.execute(() -> deliver(envelope));
+        }
+
+        @Override
+        public void handleException(StompSession failed, StompCommand command, StompHeaders headers,
+                                    byte[] payload, Throwable exception) {
+            log.error("Broker bus failed to handle {} frame", command, exception);
+        }
+
+        @Override
+        public void handleTransportError(StompSession failed, Throwable exception) {
+            if (session == failed) {
+                session = null;
+            }
+            if (!closed) {
+                log.warn("Broker bus connection failed: {}", exception.getMessage());
+                scheduleReconnect();
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.web.socket.server.HandshakeInterceptor;
 
 import java.security.Principal;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Interceptor to validate JWT token during WebSocket handshake.
@@ -30,9 +31,10 @@ public class WebSocketAuthInterceptor implements HandshakeInterceptor {
             ServletServerHttpRequest servletRequest = (ServletServerHttpRequest) request;
             String token = servletRequest.getServletRequest().getParameter("token");
             
-            if (token != null && jwtUtil.validateToken(token)) {
-                String username = jwtUtil.extractUsername(token);
-                Long userId = jwtUtil.extractUserId(token);
+            Optional<JwtPrincipal> principal = jwtUtil.parse(token);
+            if (principal.isPresent()) {
+                String username = principal.get().getUsername();
+                Long userId = principal.get().getUserId();
                 
                 attributes.put("username", username);
                 attributes.put("userId", userId);
@@ -1,6 +1,7 @@
 package com.chess.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -11,6 +12,15 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 
 /**
  * WebSocket configuration for STOMP messaging over SockJS.
+ *
+ * {@code chess.broker.mode} selects how /topic and /queue messages reach subscribers:
+ * {@code simple} keeps the in-memory broker of a single node, {@code relay} hands them to an external
+ * STOMP broker shared by all nodes, and {@code bus} keeps a local broker on each node and copies
+ * messages between nodes through a {@link BrokerBus}.
+ * <p>
+ * With {@code spring.threads.virtual.enabled} (Java 21) the client channels, and so the
+ * {@code @MessageMapping} handlers, run on virtual threads, as Tomcat does for MVC requests.
+ * Message order per session is then preserved explicitly, since it no longer follows from a small pool.
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -20,13 +30,56 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${chess.websocket.allowed-origins}")
     private String allowedOrigins;
 
+    @Value("${chess.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${chess.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${chess.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${chess.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${chess.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${chess.websocket.virtual-threads.max-concurrency:10000}")
+    private int virtualThreadsMaxConcurrency;
+
     private final WebSocketAuthInterceptor webSocketAuthInterceptor;
     private final WebSocketChannelInterceptor webSocketChannelInterceptor;
     private final CustomHandshakeHandler customHandshakeHandler;
+    private final ObjectProvider<BrokerBusForwarder> brokerBusForwarder;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        switch (brokerMode) {
+            case "simple" -> config.enableSimpleBroker("/topic", "/queue");
+            case "relay" -> {
+                config.enableStompBrokerRelay("/topic", "/queue")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayLogin)
+                        .setClientPasscode(relayPasscode)
+                        .setSystemLogin(relayLogin)
+                        .setSystemPasscode(relayPasscode)
+                        .setUserRegistryBroadcast("/topic/simp-user-registry")
+                        .setUserDestinationBroadcast(BrokerBusForwarder.USER_DESTINATION_BROADCAST);
+            }
+            case "bus" -> {
+                config.enableSimpleBroker("/topic", "/queue");
+                brokerBusForwarder.ifAvailable(config.configureBrokerChannel()::interceptors);
+            }
+            default -> throw new IllegalStateException("Unknown chess.broker.mode: " + brokerMode);
+        }
+        if (virtualThreads) {
+            config.setPreservePublishOrder(true);
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -38,11 +91,24 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .addInterceptors(webSocketAuthInterceptor)
                 .setHandshakeHandler(customHandshakeHandler)
                 .withSockJS();
+        if (virtualThreads) {
+            registry.setPreserveReceiveOrder(true);
+        }
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(webSocketChannelInterceptor);
+        if (virtualThreads) {
+            registration.taskExecutor(ChannelExecutors.virtualThreads("ws-inbound-", virtualThreadsMaxConcurrency));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.taskExecutor(ChannelExecutors.virtualThreads("ws-outbound-", virtualThreadsMaxConcurrency));
+        }
     }
 }
 
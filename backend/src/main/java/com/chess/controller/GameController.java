@@ -1,6 +1,8 @@
 package com.chess.controller;
 
+import com.chess.config.JwtPrincipal;
 import com.chess.dto.GameDto;
+import com.chess.dto.GameHistoryPage;
 import com.chess.dto.MoveDto;
 import com.chess.service.GameService;
 import lombok.RequiredArgsConstructor;
@@ -43,14 +45,20 @@ public class GameController {
     }
 
     @GetMapping("/history")
-    public ResponseEntity<List<GameDto>> getUserGames(Authentication authentication) {
+    public ResponseEntity<GameHistoryPage> getGameHistory(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean includeMoves) {
         Long userId = extractUserId(authentication);
-        return ResponseEntity.ok(gameService.getUserGames(userId));
+        return ResponseEntity.ok(gameService.getGameHistory(userId, cursor, limit, includeMoves));
     }
 
     private Long extractUserId(Authentication authentication) {
-        // Simplified; will be properly handled in WebSocket
-        return 1L;
+        if (authentication == null || !(authentication.getPrincipal() instanceof JwtPrincipal principal)) {
+            throw new IllegalStateException("Not authenticated");
+        }
+        return principal.getUserId();
     }
 }
 
@@ -1,5 +1,6 @@
 package com.chess.controller;
 
+import com.chess.config.JwtPrincipal;
 import com.chess.dto.InvitationDto;
 import com.chess.dto.UserDto;
 import com.chess.service.InvitationService;
@@ -34,8 +35,10 @@ public class LobbyController {
     }
 
     private Long extractUserId(Authentication authentication) {
-        // This is a simplified approach; in production, extract from JWT or UserDetails
-        return 1L; // Will be properly extracted in WebSocketController
+        if (authentication == null || !(authentication.getPrincipal() instanceof JwtPrincipal principal)) {
+            throw new IllegalStateException("Not authenticated");
+        }
+        return principal.getUserId();
     }
 }
 
@@ -2,20 +2,27 @@ package com.chess.controller;
 
 import com.chess.dto.GameDto;
 import com.chess.dto.InvitationDto;
+import com.chess.dto.MatchmakingRequest;
 import com.chess.dto.MoveDto;
 import com.chess.dto.MoveRequest;
-import com.chess.service.GameService;
+import com.chess.dto.PresenceSnapshot;
+import com.chess.service.GameRouter;
+import com.chess.service.GameClockService;
 import com.chess.service.InvitationService;
+import com.chess.service.MatchmakingService;
 import com.chess.service.PresenceService;
+import com.chess.service.TimeControl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * WebSocket controller for real-time game events.
@@ -25,15 +32,21 @@ import java.util.Map;
 @Slf4j
 public class WebSocketController {
 
-    private final GameService gameService;
     private final InvitationService invitationService;
     private final PresenceService presenceService;
+    private final GameRouter gameRouter;
+    private final MatchmakingService matchmakingService;
+    private final GameClockService gameClockService;
 
-    @MessageMapping("/lobby/presence")
-    public void notifyPresence(SimpMessageHeaderAccessor headerAccessor) {
+    /**
+     * Replies to a SUBSCRIBE on /app/lobby/presence with the current snapshot;
+     * later changes arrive as deltas on /topic/presence.
+     */
+    @SubscribeMapping("/lobby/presence")
+    public PresenceSnapshot presenceSnapshot(SimpMessageHeaderAccessor headerAccessor) {
         Long userId = getUserIdFromHeaders(headerAccessor);
-        log.debug("Presence notification from user: {}", userId);
-        presenceService.broadcastPresenceUpdate();
+        log.debug("Presence snapshot requested by user: {}", userId);
+        return presenceService.getSnapshot();
     }
 
     @MessageMapping("/invite")
@@ -45,6 +58,9 @@ public class WebSocketController {
             
             log.info("Invitation from {} to {}", fromUserId, toUserId);
             invitationService.sendInvitation(fromUserId, toUserId);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Expected rejections (including rate limiting) are not worth a stack trace per frame
+            log.debug("Invitation rejected: {}", e.getMessage());
         } catch (Exception e) {
             log.error("Error sending invitation", e);
             throw e;
@@ -71,6 +87,29 @@ public class WebSocketController {
         invitationService.declineInvitation(invitationId, userId);
     }
 
+    @MessageMapping("/matchmaking/join")
+    public void joinMatchmaking(@Payload MatchmakingRequest request,
+                                SimpMessageHeaderAccessor headerAccessor) {
+        Long userId = getUserIdFromHeaders(headerAccessor);
+        TimeControl timeControl = request.getBaseTimeMillis() != null
+                ? new TimeControl(request.getBaseTimeMillis(),
+                        request.getIncrementMillis() != null ? request.getIncrementMillis() : 0)
+                : gameClockService.defaultTimeControl();
+        if (!matchmakingService.offers(timeControl)) {
+            throw new IllegalArgumentException("Time control not offered for matchmaking: " + timeControl);
+        }
+
+        log.info("User {} looking for a {} game", userId, timeControl);
+        matchmakingService.join(userId, getUsernameFromHeaders(headerAccessor), timeControl);
+    }
+
+    @MessageMapping("/matchmaking/leave")
+    public void leaveMatchmaking(SimpMessageHeaderAccessor headerAccessor) {
+        Long userId = getUserIdFromHeaders(headerAccessor);
+        log.info("User {} leaving matchmaking", userId);
+        matchmakingService.leave(userId);
+    }
+
     @MessageMapping("/game/{gameId}/move")
     public void makeMove(@DestinationVariable Long gameId,
                         @Payload MoveRequest moveRequest,
@@ -81,9 +120,13 @@ public class WebSocketController {
             log.info("📥 MOVE REQUEST from user {} in game {}: {} -> {}", 
                      userId, gameId, moveRequest.getFrom(), moveRequest.getTo());
             
-            MoveDto move = gameService.makeMove(gameId, userId, moveRequest);
+            Optional<MoveDto> move = gameRouter.makeMove(gameId, userId, moveRequest);
             
-            log.info("✅ MOVE PROCESSED successfully: Move ID {}", move.getId());
+            if (move.isPresent()) {
+                log.info("✅ MOVE PROCESSED successfully: Move ID {}", move.get().getId());
+            } else {
+                log.info("➡️ MOVE FORWARDED to the owner of game {}", gameId);
+            }
         } catch (Exception e) {
             log.error("❌ ERROR processing move in game {}: {}", gameId, e.getMessage(), e);
             throw e;
@@ -102,7 +145,7 @@ public class WebSocketController {
                           SimpMessageHeaderAccessor headerAccessor) {
         Long userId = getUserIdFromHeaders(headerAccessor);
         log.info("User {} resigning from game {}", userId, gameId);
-        gameService.resignGame(gameId, userId);
+        gameRouter.resignGame(gameId, userId);
     }
 
     private Long getUserIdFromHeaders(SimpMessageHeaderAccessor headerAccessor) {
@@ -112,6 +155,14 @@ public class WebSocketController {
         }
         throw new IllegalStateException("User ID not found in session");
     }
+
+    private String getUsernameFromHeaders(SimpMessageHeaderAccessor headerAccessor) {
+        Map<String, Object> sessionAttributes = headerAccessor.getSessionAttributes();
+        if (sessionAttributes != null && sessionAttributes.containsKey("username")) {
+            return (String) sessionAttributes.get("username");
+        }
+        throw new IllegalStateException("Username not found in session");
+    }
 }
 
 
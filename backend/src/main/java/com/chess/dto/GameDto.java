@@ -25,6 +25,11 @@ public class GameDto {
     private LocalDateTime createdAt;
     private LocalDateTime completedAt;
     private Long winnerId;
+    private Long clockBaseMillis;      // null for untimed games
+    private Long clockIncrementMillis;
+    private Long whiteClockMillis;     // time left when the current turn started
+    private Long blackClockMillis;
+    private LocalDateTime turnStartedAt;
     private List<MoveDto> moves;
     
     public static GameDto fromEntity(Game game) {
@@ -38,6 +43,11 @@ public class GameDto {
                 .createdAt(game.getCreatedAt())
                 .completedAt(game.getCompletedAt())
                 .winnerId(game.getWinnerId())
+                .clockBaseMillis(game.getClockBaseMillis())
+                .clockIncrementMillis(game.getClockIncrementMillis())
+                .whiteClockMillis(game.getWhiteClockMillis())
+                .blackClockMillis(game.getBlackClockMillis())
+                .turnStartedAt(game.getTurnStartedAt())
                 .build();
     }
 }
@@ -0,0 +1,22 @@
+package com.chess.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a player's game history, newest first.
+ * Pass {@code nextCursor} back as {@code cursor} to fetch the following page; it is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameHistoryPage {
+    private List<GameDto> games;
+    private String nextCursor;
+    private boolean hasMore;
+}
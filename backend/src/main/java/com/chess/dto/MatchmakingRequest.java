@@ -0,0 +1,18 @@
+package com.chess.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request to join the matchmaking queue. Without a base time the server's default time control is used.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchmakingRequest {
+    private Long baseTimeMillis;
+    private Long incrementMillis;
+}
@@ -24,6 +24,8 @@ public class MoveDto {
     private String san;
     private Integer moveNumber;
     private LocalDateTime createdAt;
+    private Long whiteClockMillis; // clocks after this move, set for timed games only
+    private Long blackClockMillis;
     
     public static MoveDto fromEntity(Move move) {
         return MoveDto.builder()
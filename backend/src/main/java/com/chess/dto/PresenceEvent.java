@@ -0,0 +1,30 @@
+package com.chess.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single change to the set of online users, broadcast on /topic/presence.
+ *
+ * Every backend node publishes the changes of its own sessions, tagged with {@code node}.
+ * Sequence numbers increase by one per event and node, so a client can detect a missed event
+ * and re-sync. {@code NODE_DOWN} carries no user or sequence: everyone the node reported is gone.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceEvent {
+    private Type type;
+    private UserDto user;
+    private String node;
+    private long sequence;
+
+    public enum Type {
+        JOINED,
+        LEFT,
+        NODE_DOWN
+    }
+}
@@ -0,0 +1,30 @@
+package com.chess.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Online users across the cluster. {@code nodes} holds, per publishing node, the users it reported
+ * and the sequence this is valid as of: that node's events with a higher sequence apply on top of it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceSnapshot {
+    private List<UserDto> users;
+    private Map<String, Node> nodes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Node {
+        private long sequence;
+        private List<Long> userIds;
+    }
+}
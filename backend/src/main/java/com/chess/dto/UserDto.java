@@ -18,6 +18,7 @@ public class UserDto {
     private String displayName;
     private Boolean online;
     private LocalDateTime lastSeen;
+    private Integer rating;
     
     public static UserDto fromEntity(User user) {
         return UserDto.builder()
@@ -26,6 +27,7 @@ public class UserDto {
                 .displayName(user.getDisplayName())
                 .online(user.getOnline())
                 .lastSeen(user.getLastSeen())
+                .rating(user.getRating())
                 .build();
     }
 }
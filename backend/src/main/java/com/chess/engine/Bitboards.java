@@ -0,0 +1,148 @@
+package com.chess.engine;
+
+/**
+ * Precomputed attack tables and square helpers for the bitboard engine.
+ *
+ * Squares are numbered a1 = 0, b1 = 1, ... h8 = 63 (little-endian rank-file mapping).
+ * Sliding attacks use hyperbola quintessence over precomputed line masks, so a
+ * lookup is a handful of arithmetic operations with no allocation.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Line masks through each square, excluding the square itself
+    private static final long[] FILE_MASKS = new long[64];
+    private static final long[] RANK_MASKS = new long[64];
+    private static final long[] DIAGONAL_MASKS = new long[64];
+    private static final long[] ANTI_DIAGONAL_MASKS = new long[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            int file = file(sq);
+            int rank = rank(sq);
+
+            KNIGHT_ATTACKS[sq] = offsets(file, rank, new int[][] {
+                {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}
+            });
+            KING_ATTACKS[sq] = offsets(file, rank, new int[][] {
+                {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}
+            });
+            PAWN_ATTACKS[Piece.WHITE][sq] = offsets(file, rank, new int[][] {{-1, 1}, {1, 1}});
+            PAWN_ATTACKS[Piece.BLACK][sq] = offsets(file, rank, new int[][] {{-1, -1}, {1, -1}});
+
+            FILE_MASKS[sq] = ray(file, rank, 0, 1) | ray(file, rank, 0, -1);
+            RANK_MASKS[sq] = ray(file, rank, 1, 0) | ray(file, rank, -1, 0);
+            DIAGONAL_MASKS[sq] = ray(file, rank, 1, 1) | ray(file, rank, -1, -1);
+            ANTI_DIAGONAL_MASKS[sq] = ray(file, rank, 1, -1) | ray(file, rank, -1, 1);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static int file(int square) {
+        return square & 7;
+    }
+
+    public static int rank(int square) {
+        return square >>> 3;
+    }
+
+    public static int square(int file, int rank) {
+        return rank * 8 + file;
+    }
+
+    /**
+     * Parses an algebraic square such as "e4". Returns -1 if the string is not a square.
+     */
+    public static int parseSquare(String name) {
+        if (name == null || name.length() != 2) {
+            return -1;
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return -1;
+        }
+        return square(file, rank);
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + file(square)) + (char) ('1' + rank(square));
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[color][square];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return lineAttacks(square, occupied, DIAGONAL_MASKS[square])
+                | lineAttacks(square, occupied, ANTI_DIAGONAL_MASKS[square]);
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return lineAttacks(square, occupied, FILE_MASKS[square])
+                | lineAttacks(square, occupied, RANK_MASKS[square]);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    /**
+     * Hyperbola quintessence: attacks along one line, stopping at (and including) the first blocker
+     * in each direction. Uses a full 64-bit reversal, so it is valid for ranks as well as files and diagonals.
+     */
+    private static long lineAttacks(int square, long occupied, long mask) {
+        long slider = 1L << square;
+        long forward = occupied & mask;
+        long reverse = Long.reverse(forward);
+        forward -= slider << 1;
+        reverse -= Long.reverse(slider) << 1;
+        return (forward ^ Long.reverse(reverse)) & mask;
+    }
+
+    private static long offsets(int file, int rank, int[][] deltas) {
+        long result = 0L;
+        for (int[] delta : deltas) {
+            int f = file + delta[0];
+            int r = rank + delta[1];
+            if (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                result |= bit(square(f, r));
+            }
+        }
+        return result;
+    }
+
+    private static long ray(int file, int rank, int fileStep, int rankStep) {
+        long result = 0L;
+        int f = file + fileStep;
+        int r = rank + rankStep;
+        while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+            result |= bit(square(f, r));
+            f += fileStep;
+            r += rankStep;
+        }
+        return result;
+    }
+}
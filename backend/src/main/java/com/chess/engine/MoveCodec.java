@@ -0,0 +1,62 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Packs {@link Moves} encoded moves into a byte array, two bytes per move in big-endian order,
+ * so a whole game fits in a single column. A move is only meaningful when replayed from the
+ * position before it, which is why packed games are always decoded from the start.
+ */
+public final class MoveCodec {
+
+    public static final int BYTES_PER_MOVE = 2;
+
+    private MoveCodec() {
+    }
+
+    public static byte[] pack(int[] moves) {
+        byte[] packed = new byte[moves.length * BYTES_PER_MOVE];
+        for (int i = 0; i < moves.length; i++) {
+            write(packed, i, moves[i]);
+        }
+        return packed;
+    }
+
+    /**
+     * Returns a copy of {@code packed} with {@code move} added at the end.
+     */
+    public static byte[] append(byte[] packed, int move) {
+        byte[] result = Arrays.copyOf(packed, packed.length + BYTES_PER_MOVE);
+        write(result, count(packed), move);
+        return result;
+    }
+
+    public static int[] unpack(byte[] packed) {
+        int[] moves = new int[count(packed)];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = moveAt(packed, i);
+        }
+        return moves;
+    }
+
+    public static int count(byte[] packed) {
+        if (packed.length % BYTES_PER_MOVE != 0) {
+            throw new IllegalArgumentException("Packed moves have odd length " + packed.length);
+        }
+        return packed.length / BYTES_PER_MOVE;
+    }
+
+    public static int moveAt(byte[] packed, int index) {
+        int offset = index * BYTES_PER_MOVE;
+        return ((packed[offset] & 0xFF) << 8) | (packed[offset + 1] & 0xFF);
+    }
+
+    private static void write(byte[] packed, int index, int move) {
+        if ((move & ~0xFFFF) != 0) {
+            throw new IllegalArgumentException("Move does not fit in 16 bits: " + move);
+        }
+        int offset = index * BYTES_PER_MOVE;
+        packed[offset] = (byte) (move >>> 8);
+        packed[offset + 1] = (byte) move;
+    }
+}
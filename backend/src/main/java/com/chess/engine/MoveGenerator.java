@@ -0,0 +1,67 @@
+package com.chess.engine;
+
+/**
+ * Legal move generation for a {@link Position}.
+ *
+ * Moves are written as {@link Moves} ints into a caller-supplied buffer, so
+ * generation allocates nothing. Legality is decided by making each
+ * pseudo-legal move and testing whether the mover's king is attacked.
+ */
+public final class MoveGenerator {
+
+    /**
+     * Upper bound on the number of legal moves in any reachable chess position (218), rounded up.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final int[] PROMOTION_TYPES = {Piece.QUEEN, Piece.ROOK, Piece.BISHOP, Piece.KNIGHT};
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes all legal moves for the side to move into {@code moves} and returns how many there are.
+     */
+    public static int generateLegal(Position position, int[] moves) {
+        int count = generatePseudoLegal(position, moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (!position.leavesKingInCheck(move)) {
+                moves[legal++] = move;
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Writes all moves that follow the pieces' movement rules, including ones that leave
+     * the king in check, into {@code moves} and returns how many there are.
+     */
+    public static int generatePseudoLegal(Position position, int[] moves) {
+        int count = 0;
+        long movers = position.colorOccupancy(position.sideToMove());
+        long promotionRanks = Bitboards.RANK_1 | Bitboards.RANK_8;
+
+        while (movers != 0) {
+            int from = Long.numberOfTrailingZeros(movers);
+            movers &= movers - 1;
+            boolean isPawn = Piece.type(position.pieceAt(from)) == Piece.PAWN;
+
+            long targets = position.targets(from);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+
+                if (isPawn && (Bitboards.bit(to) & promotionRanks) != 0) {
+                    for (int type : PROMOTION_TYPES) {
+                        moves[count++] = position.encodeMove(from, to, type);
+                    }
+                } else {
+                    moves[count++] = position.encodeMove(from, to, Piece.NONE);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,80 @@
+package com.chess.engine;
+
+/**
+ * 16-bit move encoding used by the engine: bits 0-5 hold the source square,
+ * bits 6-11 the target square and bits 12-15 a flag describing the move kind.
+ *
+ * Flags follow the usual layout: bit 2 (value 4) marks captures and bit 3
+ * (value 8) marks promotions, with the low two bits selecting the promoted piece.
+ */
+public final class Moves {
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    public static final int NONE = 0;
+
+    private Moves() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * Encodes a promotion to {@code promotionType} (KNIGHT, BISHOP, ROOK or QUEEN).
+     */
+    public static int promotion(int from, int to, int promotionType, boolean capture) {
+        int flags = (capture ? PROMOTION_CAPTURE : PROMOTION) | (promotionType - Piece.KNIGHT);
+        return encode(from, to, flags);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /**
+     * Returns the promoted piece type, or {@link Piece#NONE} if this is not a promotion.
+     */
+    public static int promotionType(int move) {
+        return isPromotion(move) ? Piece.KNIGHT + (flags(move) & 3) : Piece.NONE;
+    }
+
+    /**
+     * Formats a move in UCI long algebraic notation, e.g. "e2e4" or "e7e8q".
+     */
+    public static String toUci(int move) {
+        String uci = Bitboards.squareName(from(move)) + Bitboards.squareName(to(move));
+        if (isPromotion(move)) {
+            uci += Piece.letter(Piece.code(Piece.BLACK, promotionType(move)));
+        }
+        return uci;
+    }
+}
@@ -0,0 +1,36 @@
+package com.chess.engine;
+
+/**
+ * Perft (performance test): counts the leaf nodes of the legal move tree to a fixed depth.
+ *
+ * The counts for well-known positions are published, which makes perft the standard
+ * correctness check for a move generator, and its node rate a simple throughput measure.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    public static long perft(Position position, int depth) {
+        int[][] buffers = new int[Math.max(depth, 1)][MoveGenerator.MAX_MOVES];
+        return perft(position, depth, buffers);
+    }
+
+    private static long perft(Position position, int depth, int[][] buffers) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = buffers[depth - 1];
+        int count = MoveGenerator.generateLegal(position, moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.make(moves[i]);
+            nodes += perft(position, depth - 1, buffers);
+            position.unmake(moves[i]);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,94 @@
+package com.chess.engine;
+
+/**
+ * Primitive piece encoding used by the bitboard engine.
+ *
+ * A piece code is {@code color * 6 + type}, so white pieces are 0-5 and black
+ * pieces are 6-11. {@link #NONE} marks an empty square.
+ */
+public final class Piece {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int NONE = -1;
+
+    private static final String[] LETTERS = {
+        "P", "N", "B", "R", "Q", "K",
+        "p", "n", "b", "r", "q", "k"
+    };
+
+    private Piece() {
+    }
+
+    public static int code(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int color(int code) {
+        return code < 6 ? WHITE : BLACK;
+    }
+
+    public static int type(int code) {
+        return code < 6 ? code : code - 6;
+    }
+
+    /**
+     * Returns the FEN letter for a piece code: uppercase for white, lowercase for black.
+     */
+    public static String letter(int code) {
+        return LETTERS[code];
+    }
+
+    /**
+     * Returns the uppercase letter for a piece type (P, N, B, R, Q, K).
+     */
+    public static String typeLetter(int type) {
+        return LETTERS[type];
+    }
+
+    /**
+     * Parses a FEN piece letter. Returns {@link #NONE} for anything else.
+     */
+    public static int fromLetter(char c) {
+        switch (c) {
+            case 'P': return code(WHITE, PAWN);
+            case 'N': return code(WHITE, KNIGHT);
+            case 'B': return code(WHITE, BISHOP);
+            case 'R': return code(WHITE, ROOK);
+            case 'Q': return code(WHITE, QUEEN);
+            case 'K': return code(WHITE, KING);
+            case 'p': return code(BLACK, PAWN);
+            case 'n': return code(BLACK, KNIGHT);
+            case 'b': return code(BLACK, BISHOP);
+            case 'r': return code(BLACK, ROOK);
+            case 'q': return code(BLACK, QUEEN);
+            case 'k': return code(BLACK, KING);
+            default: return NONE;
+        }
+    }
+
+    /**
+     * Parses a promotion letter (Q, R, B, N, case-insensitive) into a piece type.
+     * Returns {@link #NONE} if the string is not a valid promotion choice.
+     */
+    public static int promotionType(String promotion) {
+        if (promotion == null || promotion.length() != 1) {
+            return NONE;
+        }
+        switch (Character.toUpperCase(promotion.charAt(0))) {
+            case 'Q': return QUEEN;
+            case 'R': return ROOK;
+            case 'B': return BISHOP;
+            case 'N': return KNIGHT;
+            default: return NONE;
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Mutable bitboard representation of a chess position.
+ *
+ * Keeps one bitboard per piece code, one per color, a combined occupancy board
+ * and a 64-entry mailbox for constant-time piece lookup, along with castling
+ * rights, the en passant square, the halfmove clock and an incrementally
+ * maintained Zobrist key.
+ *
+ * Moves use the 16-bit {@link Moves} encoding. {@link #play} applies a move
+ * permanently; {@link #make} and {@link #unmake} apply and take back moves
+ * during search without allocating.
+ */
+public final class Position {
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    public static final String INITIAL_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int E1 = 4;
+    private static final int E8 = 60;
+
+    // Castling rights that survive a move touching each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[E1] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[E8] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    private final long[] pieces = new long[12];
+    private final long[] colors = new long[2];
+    private long occupied;
+    private final byte[] board = new byte[64];
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare = -1;
+    private int halfmoveClock;
+    private long key;
+
+    // Undo stack for make/unmake, allocated up front so the first make() on a copy allocates nothing
+    private long[] undoState = new long[64];
+    private long[] undoKey = new long[64];
+    private int ply;
+
+    // State replaced by the last doMove, recorded by make() for unmake()
+    private int castlingUndo;
+    private int enPassantUndo;
+    private int halfmoveClockUndo;
+
+    private Position() {
+        Arrays.fill(board, (byte) Piece.NONE);
+    }
+
+    /**
+     * Creates the standard starting position with white to move.
+     */
+    public static Position initial() {
+        return fromFen(INITIAL_FEN);
+    }
+
+    /**
+     * Parses the placement, side to move, castling, en passant and halfmove clock fields of a FEN string.
+     * Throws IllegalArgumentException if the FEN is malformed.
+     */
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        Position position = new Position();
+
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int code = Piece.fromLetter(c);
+                if (code == Piece.NONE || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                position.put(Bitboards.square(file, rank), code);
+                file++;
+            }
+        }
+
+        position.sideToMove = "b".equals(fields[1]) ? Piece.BLACK : Piece.WHITE;
+
+        if (fields.length > 2) {
+            for (char c : fields[2].toCharArray()) {
+                switch (c) {
+                    case 'K': position.castlingRights |= WHITE_KINGSIDE; break;
+                    case 'Q': position.castlingRights |= WHITE_QUEENSIDE; break;
+                    case 'k': position.castlingRights |= BLACK_KINGSIDE; break;
+                    case 'q': position.castlingRights |= BLACK_QUEENSIDE; break;
+                    default: break;
+                }
+            }
+        }
+        if (fields.length > 3 && !"-".equals(fields[3])) {
+            position.enPassantSquare = Bitboards.parseSquare(fields[3]);
+        }
+        if (fields.length > 4) {
+            try {
+                position.halfmoveClock = Integer.parseInt(fields[4]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid FEN: " + fen);
+            }
+        }
+
+        if (position.sideToMove == Piece.BLACK) {
+            position.key ^= Zobrist.sideToMove();
+        }
+        position.key ^= Zobrist.castling(position.castlingRights);
+        if (position.isEnPassantHashed()) {
+            position.key ^= Zobrist.enPassant(Bitboards.file(position.enPassantSquare));
+        }
+        return position;
+    }
+
+    public Position copy() {
+        Position copy = new Position();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        System.arraycopy(other.board, 0, board, 0, board.length);
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        key = other.key;
+        ply = 0;
+    }
+
+    /**
+     * Returns the piece code on a square, or {@link Piece#NONE} if it is empty.
+     */
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public long pieces(int code) {
+        return pieces[code];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[Piece.code(color, type)];
+    }
+
+    public long colorOccupancy(int color) {
+        return colors[color];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Returns the square a pawn may capture onto en passant, or -1.
+     */
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Returns the number of plies since the last capture or pawn move, for the fifty-move rule.
+     */
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Returns the Zobrist hash of this position, maintained incrementally as moves are applied.
+     * The en passant file only contributes when an en passant capture is actually available.
+     */
+    public long hash() {
+        return key;
+    }
+
+    public int kingSquare(int color) {
+        long king = pieces[Piece.code(color, Piece.KING)];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Returns true if any piece of {@code byColor} attacks {@code square}.
+     */
+    public boolean isSquareAttacked(int square, int byColor) {
+        if ((Bitboards.pawnAttacks(byColor ^ 1, square) & pieces(byColor, Piece.PAWN)) != 0) {
+            return true;
+        }
+        if ((Bitboards.knightAttacks(square) & pieces(byColor, Piece.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((Bitboards.kingAttacks(square) & pieces(byColor, Piece.KING)) != 0) {
+            return true;
+        }
+        long queens = pieces(byColor, Piece.QUEEN);
+        if ((Bitboards.bishopAttacks(square, occupied) & (pieces(byColor, Piece.BISHOP) | queens)) != 0) {
+            return true;
+        }
+        return (Bitboards.rookAttacks(square, occupied) & (pieces(byColor, Piece.ROOK) | queens)) != 0;
+    }
+
+    public boolean isInCheck(int color) {
+        int king = kingSquare(color);
+        return king >= 0 && isSquareAttacked(king, color ^ 1);
+    }
+
+    /**
+     * Returns the squares the piece on {@code from} could move to by its movement pattern,
+     * including pawn pushes, captures, en passant and castling, excluding squares held by its
+     * own side. Does not consider whether the move would leave the king in check.
+     */
+    public long targets(int from) {
+        int code = board[from];
+        if (code == Piece.NONE) {
+            return 0L;
+        }
+        int color = Piece.color(code);
+        long own = colors[color];
+
+        switch (Piece.type(code)) {
+            case Piece.PAWN:
+                return pawnTargets(from, color);
+            case Piece.KNIGHT:
+                return Bitboards.knightAttacks(from) & ~own;
+            case Piece.BISHOP:
+                return Bitboards.bishopAttacks(from, occupied) & ~own;
+            case Piece.ROOK:
+                return Bitboards.rookAttacks(from, occupied) & ~own;
+            case Piece.QUEEN:
+                return Bitboards.queenAttacks(from, occupied) & ~own;
+            case Piece.KING:
+                return (Bitboards.kingAttacks(from) & ~own) | castlingTargets(from, color);
+            default:
+                return 0L;
+        }
+    }
+
+    private long pawnTargets(int from, int color) {
+        long empty = ~occupied;
+        long enemies = colors[color ^ 1];
+        if (enPassantSquare >= 0) {
+            enemies |= Bitboards.bit(enPassantSquare);
+        }
+        long result = Bitboards.pawnAttacks(color, from) & enemies;
+
+        int direction = color == Piece.WHITE ? 8 : -8;
+        int single = from + direction;
+        if (single >= 0 && single < 64 && (empty & Bitboards.bit(single)) != 0) {
+            result |= Bitboards.bit(single);
+            int startRank = color == Piece.WHITE ? 1 : 6;
+            int doubled = single + direction;
+            if (Bitboards.rank(from) == startRank && (empty & Bitboards.bit(doubled)) != 0) {
+                result |= Bitboards.bit(doubled);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Castling destinations for a king on its home square: the right must still be held, the
+     * squares between king and rook must be empty, and the king may not start in or pass
+     * through check. Landing in check is caught by the ordinary legality test.
+     */
+    private long castlingTargets(int from, int color) {
+        int home = color == Piece.WHITE ? E1 : E8;
+        if (from != home || castlingRights == 0) {
+            return 0L;
+        }
+        int kingside = color == Piece.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = color == Piece.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        int rook = Piece.code(color, Piece.ROOK);
+        int enemy = color ^ 1;
+        long result = 0L;
+
+        if ((castlingRights & kingside) != 0 && board[home + 3] == rook
+                && (occupied & (Bitboards.bit(home + 1) | Bitboards.bit(home + 2))) == 0
+                && !isSquareAttacked(home, enemy) && !isSquareAttacked(home + 1, enemy)) {
+            result |= Bitboards.bit(home + 2);
+        }
+        if ((castlingRights & queenside) != 0 && board[home - 4] == rook
+                && (occupied & (Bitboards.bit(home - 1) | Bitboards.bit(home - 2) | Bitboards.bit(home - 3))) == 0
+                && !isSquareAttacked(home, enemy) && !isSquareAttacked(home - 1, enemy)) {
+            result |= Bitboards.bit(home - 2);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the encoded move for the piece on {@code from} going to {@code to}, working out
+     * captures, double pushes, en passant and castling from the board. A pawn reaching the
+     * last rank promotes to {@code promotionType}, or to a queen if none is given.
+     * Does not check that the move is legal.
+     */
+    public int encodeMove(int from, int to, int promotionType) {
+        int moving = board[from];
+        boolean capture = board[to] != Piece.NONE;
+
+        if (Piece.type(moving) == Piece.PAWN) {
+            int rank = Bitboards.rank(to);
+            if (rank == 0 || rank == 7) {
+                return Moves.promotion(from, to, promotionType == Piece.NONE ? Piece.QUEEN : promotionType, capture);
+            }
+            if (to == enPassantSquare && Bitboards.file(from) != Bitboards.file(to)) {
+                return Moves.encode(from, to, Moves.EN_PASSANT);
+            }
+            if (Math.abs(to - from) == 16) {
+                return Moves.encode(from, to, Moves.DOUBLE_PUSH);
+            }
+        } else if (Piece.type(moving) == Piece.KING && Math.abs(to - from) == 2) {
+            return Moves.encode(from, to, to > from ? Moves.KING_CASTLE : Moves.QUEEN_CASTLE);
+        }
+        return Moves.encode(from, to, capture ? Moves.CAPTURE : Moves.QUIET);
+    }
+
+    /**
+     * Moves the piece on {@code from} to {@code to} and passes the turn to the other side.
+     * {@code promotionType} is only used when a pawn reaches the last rank.
+     *
+     * @return the code of the captured piece, or {@link Piece#NONE}
+     */
+    public int applyMove(int from, int to, int promotionType) {
+        if (board[from] == Piece.NONE) {
+            throw new IllegalArgumentException("No piece on " + Bitboards.squareName(from));
+        }
+        return play(encodeMove(from, to, promotionType));
+    }
+
+    /**
+     * Applies a move permanently. The move cannot be taken back with {@link #unmake}.
+     *
+     * @return the code of the captured piece, or {@link Piece#NONE}
+     */
+    public int play(int move) {
+        return doMove(move);
+    }
+
+    /**
+     * Applies a move so that it can be taken back with {@link #unmake}.
+     */
+    public void make(int move) {
+        if (ply == undoState.length) {
+            undoState = Arrays.copyOf(undoState, ply * 2);
+            undoKey = Arrays.copyOf(undoKey, ply * 2);
+        }
+        undoKey[ply] = key;
+        int captured = doMove(move);
+        undoState[ply] = (captured + 1) | ((long) castlingUndo << 4) | ((long) (enPassantUndo + 1) << 8)
+                | ((long) halfmoveClockUndo << 16);
+        ply++;
+    }
+
+    /**
+     * Takes back the last move applied with {@link #make}.
+     */
+    public void unmake(int move) {
+        ply--;
+        long state = undoState[ply];
+        sideToMove ^= 1;
+        int color = sideToMove;
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flags = Moves.flags(move);
+
+        int placed = board[to];
+        remove(to, placed);
+        put(from, Moves.isPromotion(move) ? Piece.code(color, Piece.PAWN) : placed);
+
+        int captured = (int) (state & 0xF) - 1;
+        if (flags == Moves.EN_PASSANT) {
+            put(to + (color == Piece.WHITE ? -8 : 8), captured);
+        } else if (captured != Piece.NONE) {
+            put(to, captured);
+        }
+
+        if (flags == Moves.KING_CASTLE) {
+            movePiece(from + 1, from + 3);
+        } else if (flags == Moves.QUEEN_CASTLE) {
+            movePiece(from - 1, from - 4);
+        }
+
+        castlingRights = (int) ((state >>> 4) & 0xF);
+        enPassantSquare = (int) ((state >>> 8) & 0x7F) - 1;
+        halfmoveClock = (int) (state >>> 16);
+        key = undoKey[ply];
+    }
+
+    /**
+     * Returns true if playing {@code move} would leave the mover's own king in check.
+     */
+    public boolean leavesKingInCheck(int move) {
+        int color = sideToMove;
+        make(move);
+        boolean inCheck = isInCheck(color);
+        unmake(move);
+        return inCheck;
+    }
+
+    /**
+     * Returns true if the side to move has at least one legal move.
+     */
+    public boolean hasLegalMove() {
+        long movers = colors[sideToMove];
+        while (movers != 0) {
+            int from = Long.numberOfTrailingZeros(movers);
+            movers &= movers - 1;
+            long targets = targets(from);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (!leavesKingInCheck(encodeMove(from, to, Piece.QUEEN))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int doMove(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int flags = Moves.flags(move);
+        int color = sideToMove;
+        int moving = board[from];
+
+        castlingUndo = castlingRights;
+        enPassantUndo = enPassantSquare;
+        halfmoveClockUndo = halfmoveClock;
+        if (isEnPassantHashed()) {
+            key ^= Zobrist.enPassant(Bitboards.file(enPassantSquare));
+        }
+        key ^= Zobrist.castling(castlingRights);
+
+        int captured = Piece.NONE;
+        if (flags == Moves.EN_PASSANT) {
+            int capturedSquare = to + (color == Piece.WHITE ? -8 : 8);
+            captured = board[capturedSquare];
+            remove(capturedSquare, captured);
+        } else if (board[to] != Piece.NONE) {
+            captured = board[to];
+            remove(to, captured);
+        }
+
+        remove(from, moving);
+        put(to, Moves.isPromotion(move) ? Piece.code(color, Moves.promotionType(move)) : moving);
+
+        if (flags == Moves.KING_CASTLE) {
+            movePiece(from + 3, from + 1);
+        } else if (flags == Moves.QUEEN_CASTLE) {
+            movePiece(from - 4, from - 1);
+        }
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        halfmoveClock = Piece.type(moving) == Piece.PAWN || captured != Piece.NONE ? 0 : halfmoveClock + 1;
+        enPassantSquare = flags == Moves.DOUBLE_PUSH ? (from + to) >>> 1 : -1;
+        sideToMove ^= 1;
+
+        key ^= Zobrist.sideToMove();
+        key ^= Zobrist.castling(castlingRights);
+        if (isEnPassantHashed()) {
+            key ^= Zobrist.enPassant(Bitboards.file(enPassantSquare));
+        }
+        return captured;
+    }
+
+    /**
+     * The en passant file is part of the hash only if the side to move has a pawn that could capture,
+     * so positions that differ only by an unusable en passant square hash the same.
+     */
+    private boolean isEnPassantHashed() {
+        return enPassantSquare >= 0
+                && (Bitboards.pawnAttacks(sideToMove ^ 1, enPassantSquare) & pieces(sideToMove, Piece.PAWN)) != 0;
+    }
+
+    private void movePiece(int from, int to) {
+        int code = board[from];
+        remove(from, code);
+        put(to, code);
+    }
+
+    private void put(int square, int code) {
+        long bit = Bitboards.bit(square);
+        pieces[code] |= bit;
+        colors[Piece.color(code)] |= bit;
+        occupied |= bit;
+        board[square] = (byte) code;
+        key ^= Zobrist.piece(code, square);
+    }
+
+    private void remove(int square, int code) {
+        long bit = ~Bitboards.bit(square);
+        pieces[code] &= bit;
+        colors[Piece.color(code)] &= bit;
+        occupied &= bit;
+        board[square] = (byte) Piece.NONE;
+        key ^= Zobrist.piece(code, square);
+    }
+}
@@ -0,0 +1,80 @@
+package com.chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Counts how often each position has occurred since the last capture or pawn move.
+ *
+ * Such a move can never be undone, so no earlier position can come back and the table starts
+ * over. Together with the fifty-move rule this keeps it to about a hundred entries, held in an
+ * open-addressed table keyed by {@link Position#hash()}.
+ */
+public final class RepetitionTable {
+
+    private long[] keys = new long[256];
+    private int[] counts = new int[256];
+    private int size;
+
+    /**
+     * Records {@code position}, the position after the latest move, and returns how many times it
+     * has now occurred. Starts over first if the move reset the halfmove clock.
+     */
+    public int add(Position position) {
+        if (position.halfmoveClock() == 0) {
+            clear();
+        }
+        if (size * 2 >= keys.length) {
+            grow();
+        }
+        int slot = slot(keys, counts, position.hash());
+        if (counts[slot] == 0) {
+            keys[slot] = position.hash();
+            size++;
+        }
+        return ++counts[slot];
+    }
+
+    /**
+     * Returns how many times the position with {@code hash} has occurred since the table last started over.
+     */
+    public int count(long hash) {
+        return counts[slot(keys, counts, hash)];
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(counts, 0);
+            size = 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot holding {@code hash}, or the empty slot where it would go.
+     */
+    private static int slot(long[] keys, int[] counts, long hash) {
+        int mask = keys.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (counts[slot] != 0 && keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = slot(keys, counts, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
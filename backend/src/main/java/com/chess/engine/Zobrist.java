@@ -0,0 +1,69 @@
+package com.chess.engine;
+
+/**
+ * Zobrist keys used to hash positions incrementally.
+ *
+ * Keys come from a fixed-seed generator so that a position hashes to the same
+ * value across restarts and across nodes.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long SIDE_TO_MOVE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                seed = next(seed);
+                PIECE_SQUARE[piece][square] = mix(seed);
+            }
+        }
+        seed = next(seed);
+        SIDE_TO_MOVE = mix(seed);
+        // Index 0 (no rights) keeps a zero key so positions without castling rights hash the same way
+        for (int rights = 1; rights < 16; rights++) {
+            seed = next(seed);
+            CASTLING[rights] = mix(seed);
+        }
+        for (int file = 0; file < 8; file++) {
+            seed = next(seed);
+            EN_PASSANT_FILE[file] = mix(seed);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int code, int square) {
+        return PIECE_SQUARE[code][square];
+    }
+
+    /**
+     * Key toggled in whenever black is to move.
+     */
+    public static long sideToMove() {
+        return SIDE_TO_MOVE;
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int file) {
+        return EN_PASSANT_FILE[file];
+    }
+
+    private static long next(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -12,7 +13,11 @@ import java.time.LocalDateTime;
  * Game entity representing a chess match between two players.
  */
 @Entity
-@Table(name = "games")
+@Table(name = "games", indexes = {
+    @Index(name = "idx_games_white_created", columnList = "whitePlayerId,createdAt,id"),
+    @Index(name = "idx_games_black_created", columnList = "blackPlayerId,createdAt,id"),
+    @Index(name = "idx_games_completed", columnList = "completedAt,id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,7 +25,8 @@ import java.time.LocalDateTime;
 public class Game {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "games_seq")
+    @SequenceGenerator(name = "games_seq", sequenceName = "games_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -48,6 +54,35 @@ public class Game {
 
     private Long winnerId;
 
+    // Whether the result counts in the players' ratings. Only RatingService sets it, with bulk
+    // updates, so saving a stale copy of the game cannot clear it. Null for rows created before it
+    // existed until RatingMigration fills it in
+    @Column(updatable = false)
+    @Builder.Default
+    private Boolean rated = false;
+
+    // Time control in milliseconds; null for untimed games
+    private Long clockBaseMillis;
+
+    private Long clockIncrementMillis;
+
+    // Time left on each clock when the current turn started
+    private Long whiteClockMillis;
+
+    private Long blackClockMillis;
+
+    private LocalDateTime turnStartedAt;
+
+    // Set when the game stores its moves packed (see MoveCodec) instead of as rows in the moves table
+    @Column(length = 8192)
+    private byte[] packedMoves;
+
+    // Optimistic lock: a write based on a stale read of the game is rejected.
+    // The column default fills in rows created before the column existed
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -12,7 +12,12 @@ import java.time.LocalDateTime;
  * Invitation entity representing a game invitation from one user to another.
  */
 @Entity
-@Table(name = "invitations")
+@Table(name = "invitations", indexes = {
+    // The expiry sweep walks pending invitations oldest first
+    @Index(name = "idx_invitations_status_created", columnList = "status,createdAt"),
+    @Index(name = "idx_invitations_to_status", columnList = "toUserId,status"),
+    @Index(name = "idx_invitations_pair_status", columnList = "fromUserId,toUserId,status")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,7 +25,8 @@ import java.time.LocalDateTime;
 public class Invitation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invitations_seq")
+    @SequenceGenerator(name = "invitations_seq", sequenceName = "invitations_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "moves", indexes = {
     @Index(name = "idx_game_id", columnList = "gameId"),
-    @Index(name = "idx_game_move_number", columnList = "gameId,moveNumber")
+    // Unique so that two writers can never record the same move number twice
+    @Index(name = "uk_game_move_number", columnList = "gameId,moveNumber", unique = true)
 })
 @Data
 @Builder
@@ -23,7 +24,8 @@ import java.time.LocalDateTime;
 public class Move {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "moves_seq")
+    @SequenceGenerator(name = "moves_seq", sequenceName = "moves_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -56,7 +58,10 @@ public class Move {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Journaled moves keep the time they were played
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
 
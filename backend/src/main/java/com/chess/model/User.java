@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -19,8 +20,13 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class User {
 
+    public static final int INITIAL_RATING = 1500;
+    public static final double INITIAL_RATING_DEVIATION = 350;
+    public static final double INITIAL_RATING_VOLATILITY = 0.06;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -35,21 +41,38 @@ public class User {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
-    private LocalDateTime lastSeen;
+    private LocalDateTime lastSeen; // Written in batches by PresenceService
 
     @Column(nullable = false)
     private Boolean online = false;
 
+    // The column default fills in rows created before ratings existed
+    @Column(nullable = false)
+    @ColumnDefault("1500")
+    @Builder.Default
+    private Integer rating = INITIAL_RATING;
+
+    // The unrounded Glicko-2 rating that RatingService computes with; rating is this rounded.
+    // Null for rows created before it existed until RatingMigration copies rating over.
+    @Builder.Default
+    private Double exactRating = (double) INITIAL_RATING;
+
+    // Glicko-2 uncertainty of the rating, updated by RatingService
+    @Column(nullable = false)
+    @ColumnDefault("350")
+    @Builder.Default
+    private Double ratingDeviation = INITIAL_RATING_DEVIATION;
+
+    @Column(nullable = false)
+    @ColumnDefault("0.06")
+    @Builder.Default
+    private Double ratingVolatility = INITIAL_RATING_VOLATILITY;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         lastSeen = LocalDateTime.now();
     }
-
-    @PreUpdate
-    protected void onUpdate() {
-        lastSeen = LocalDateTime.now();
-    }
 }
 
 
@@ -2,10 +2,14 @@ package com.chess.repository;
 
 import com.chess.model.Game;
 import com.chess.model.Game.GameStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +18,75 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     
     @Query("SELECT g FROM Game g WHERE (g.whitePlayerId = :userId OR g.blackPlayerId = :userId) AND g.status = :status")
     List<Game> findByPlayerIdAndStatus(Long userId, GameStatus status);
+
+    @Query("SELECT COUNT(g) > 0 FROM Game g WHERE (g.whitePlayerId = :userId OR g.blackPlayerId = :userId) AND g.status = :status")
+    boolean existsByPlayerIdAndStatus(Long userId, GameStatus status);
     
-    @Query("SELECT g FROM Game g WHERE (g.whitePlayerId = :userId OR g.blackPlayerId = :userId) ORDER BY g.createdAt DESC")
-    List<Game> findByPlayerId(Long userId);
+    // History pages are read per side so each query can walk the (player, createdAt) index
+    List<Game> findByWhitePlayerIdOrderByCreatedAtDescIdDesc(Long whitePlayerId, Pageable pageable);
+
+    List<Game> findByBlackPlayerIdOrderByCreatedAtDescIdDesc(Long blackPlayerId, Pageable pageable);
+
+    @Query("SELECT g FROM Game g WHERE g.whitePlayerId = :userId " +
+           "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) " +
+           "ORDER BY g.createdAt DESC, g.id DESC")
+    List<Game> findWhiteGamesBefore(Long userId, LocalDateTime createdAt, Long id, Pageable pageable);
+
+    @Query("SELECT g FROM Game g WHERE g.blackPlayerId = :userId " +
+           "AND (g.createdAt < :createdAt OR (g.createdAt = :createdAt AND g.id < :id)) " +
+           "ORDER BY g.createdAt DESC, g.id DESC")
+    List<Game> findBlackGamesBefore(Long userId, LocalDateTime createdAt, Long id, Pageable pageable);
     
-    Optional<Game> findFirstByWhitePlayerIdOrBlackPlayerIdAndStatus(Long whitePlayerId, Long blackPlayerId, GameStatus status);
-}
+    List<Game> findByStatusAndClockBaseMillisNotNull(GameStatus status);
+
+    // Finished games in the order they ended, for replaying ratings page by page
+    @Query("SELECT g.id AS id, g.whitePlayerId AS whitePlayerId, g.blackPlayerId AS blackPlayerId, " +
+           "g.winnerId AS winnerId, g.completedAt AS completedAt FROM Game g " +
+           "WHERE g.completedAt <= :until ORDER BY g.completedAt, g.id")
+    List<ResultView> findResults(LocalDateTime until, Pageable pageable);
 
+    @Query("SELECT g.id AS id, g.whitePlayerId AS whitePlayerId, g.blackPlayerId AS blackPlayerId, " +
+           "g.winnerId AS winnerId, g.completedAt AS completedAt FROM Game g " +
+           "WHERE g.completedAt <= :until " +
+           "AND (g.completedAt > :completedAt OR (g.completedAt = :completedAt AND g.id > :id)) " +
+           "ORDER BY g.completedAt, g.id")
+    List<ResultView> findResultsAfter(LocalDateTime completedAt, Long id, LocalDateTime until, Pageable pageable);
 
+    // Those of the given games whose result is not in the ratings yet
+    @Query("SELECT g.id FROM Game g WHERE g.id IN :ids AND g.rated = false")
+    List<Long> findUnratedIds(Collection<Long> ids);
 
+    @Query("SELECT g.id AS id, g.whitePlayerId AS whitePlayerId, g.blackPlayerId AS blackPlayerId, " +
+           "g.winnerId AS winnerId, g.completedAt AS completedAt FROM Game g " +
+           "WHERE g.rated = true AND g.completedAt >= :since ORDER BY g.completedAt, g.id")
+    List<ResultView> findRatedResultsSince(LocalDateTime since);
+
+    // Native, as rated is not updatable through the entity
+    @Modifying
+    @Query(value = "UPDATE games SET rated = TRUE WHERE id IN (:ids)", nativeQuery = true)
+    int markRated(Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE games SET rated = TRUE WHERE completed_at < :before AND rated = FALSE", nativeQuery = true)
+    int markRatedBefore(LocalDateTime before);
+
+    // Bulk update, so it leaves the version alone and cannot conflict with the game's owner;
+    // it never moves the count backwards
+    @Modifying
+    @Query("UPDATE Game g SET g.moveCount = :moveCount, g.currentTurn = :currentTurn " +
+           "WHERE g.id = :id AND g.moveCount < :moveCount")
+    int advanceMoveCount(Long id, int moveCount, Game.PlayerColor currentTurn);
+
+    Optional<Game> findFirstByWhitePlayerIdOrBlackPlayerIdAndStatus(Long whitePlayerId, Long blackPlayerId, GameStatus status);
+
+    /**
+     * Projection of a finished game without its moves, for rating replays.
+     */
+    interface ResultView {
+        Long getId();
+        Long getWhitePlayerId();
+        Long getBlackPlayerId();
+        Long getWinnerId();
+        LocalDateTime getCompletedAt();
+    }
+}
@@ -2,9 +2,14 @@ package com.chess.repository;
 
 import com.chess.model.Invitation;
 import com.chess.model.Invitation.InvitationStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +18,24 @@ public interface InvitationRepository extends JpaRepository<Invitation, Long> {
     List<Invitation> findByToUserIdAndStatus(Long toUserId, InvitationStatus status);
     List<Invitation> findByFromUserIdAndStatus(Long fromUserId, InvitationStatus status);
     Optional<Invitation> findByIdAndToUserId(Long id, Long toUserId);
-}
 
+    Optional<Invitation> findFirstByFromUserIdAndToUserIdAndStatusAndCreatedAtAfter(
+            Long fromUserId, Long toUserId, InvitationStatus status, LocalDateTime createdAfter);
+
+    List<Invitation> findByToUserIdAndStatusAndCreatedAtAfter(Long toUserId, InvitationStatus status, LocalDateTime createdAfter);
 
+    // Served by the (status, createdAt) index; the page size bounds each sweep batch
+    List<Invitation> findByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(InvitationStatus status, LocalDateTime cutoff, Pageable pageable);
 
+    /**
+     * Moves the given invitations from one status to another in a single statement, skipping
+     * any that are no longer in {@code from}.
+     */
+    @Modifying
+    @Query("UPDATE Invitation i SET i.status = :to, i.respondedAt = :respondedAt WHERE i.id IN :ids AND i.status = :from")
+    int updateStatus(Collection<Long> ids, InvitationStatus from, InvitationStatus to, LocalDateTime respondedAt);
+
+    // Reads the ids straight from the database, so rows a bulk UPDATE just changed are seen as they are now
+    @Query("SELECT i.id FROM Invitation i WHERE i.id IN :ids AND i.status = :status AND i.respondedAt = :respondedAt")
+    List<Long> findIdsByStatusAndRespondedAt(Collection<Long> ids, InvitationStatus status, LocalDateTime respondedAt);
+}
@@ -4,13 +4,16 @@ import com.chess.model.Move;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface MoveRepository extends JpaRepository<Move, Long> {
+public interface MoveRepository extends JpaRepository<Move, Long>, MoveRepositoryCustom {
     List<Move> findByGameIdOrderByMoveNumberAsc(Long gameId);
     List<Move> findByGameIdAndIdGreaterThanOrderByMoveNumberAsc(Long gameId, Long lastMoveId);
     long countByGameId(Long gameId);
+    boolean existsByGameIdAndMoveNumber(Long gameId, Integer moveNumber);
+    List<Move> findByGameIdInOrderByGameIdAscMoveNumberAsc(Collection<Long> gameIds);
 }
 
 
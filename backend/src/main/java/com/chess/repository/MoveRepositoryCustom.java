@@ -0,0 +1,18 @@
+package com.chess.repository;
+
+import com.chess.model.Move;
+
+import java.util.Collection;
+
+/**
+ * Bulk write operations on moves that Spring Data does not derive.
+ */
+public interface MoveRepositoryCustom {
+
+    /**
+     * Inserts new moves in JDBC batches of {@code hibernate.jdbc.batch_size}. The inserted moves are
+     * detached after each batch, so importing a long game does not grow the persistence context.
+     * Must run inside a transaction.
+     */
+    void insertAll(Collection<Move> moves);
+}
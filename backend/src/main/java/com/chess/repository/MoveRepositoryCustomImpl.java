@@ -0,0 +1,41 @@
+package com.chess.repository;
+
+import com.chess.model.Move;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class MoveRepositoryCustomImpl implements MoveRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    public void insertAll(Collection<Move> moves) {
+        List<Move> batch = new ArrayList<>(batchSize);
+        for (Move move : moves) {
+            entityManager.persist(move);
+            batch.add(move);
+            if (batch.size() == batchSize) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+    }
+
+    private void flush(List<Move> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        batch.forEach(entityManager::detach);
+        batch.clear();
+    }
+}
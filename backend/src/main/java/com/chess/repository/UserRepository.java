@@ -2,17 +2,39 @@ package com.chess.repository;
 
 import com.chess.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByEmail(String email);
-    List<User> findByOnlineTrue();
     boolean existsByEmail(String email);
-}
+    List<DisplayNameView> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT u.rating FROM User u WHERE u.id = :id")
+    Optional<Integer> findRatingById(Long id);
 
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.lastSeen = :lastSeen WHERE u.id IN :ids")
+    int updateLastSeen(Collection<Long> ids, LocalDateTime lastSeen);
 
+    @Modifying
+    @Query("UPDATE User u SET u.rating = :rating, u.exactRating = :exactRating, u.ratingDeviation = :deviation, u.ratingVolatility = :volatility")
+    int resetRatings(int rating, double exactRating, double deviation, double volatility);
 
+    /**
+     * Projection selecting only the columns needed to label players.
+     */
+    interface DisplayNameView {
+        Long getId();
+        String getDisplayName();
+    }
+}
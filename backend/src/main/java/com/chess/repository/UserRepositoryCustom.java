@@ -0,0 +1,27 @@
+package com.chess.repository;
+
+import com.chess.model.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bulk rating reads and writes on users that Spring Data does not derive.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Writes the rating, exact rating, deviation and volatility of each user in JDBC batches of
+     * {@code hibernate.jdbc.batch_size}, leaving every other column alone. Only the id and rating
+     * fields of the users are read. Must run inside a transaction.
+     */
+    void updateRatings(Collection<User> users);
+
+    /**
+     * Reads the rating, exact rating, deviation and volatility of the given users and locks their
+     * rows until the transaction ends, in id order so concurrent callers cannot deadlock. The
+     * returned users are not managed and only have those fields and the id set. Must run inside a
+     * transaction.
+     */
+    List<User> findRatingsForUpdate(Collection<Long> ids);
+}
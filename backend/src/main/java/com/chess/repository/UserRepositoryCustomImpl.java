@@ -0,0 +1,53 @@
+package com.chess.repository;
+
+import com.chess.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    UserRepositoryCustomImpl(JdbcTemplate jdbcTemplate,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void updateRatings(Collection<User> users) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE users SET rating = ?, exact_rating = ?, rating_deviation = ?, rating_volatility = ? WHERE id = ?",
+                users, batchSize, (statement, user) -> {
+                    statement.setInt(1, user.getRating());
+                    statement.setDouble(2, user.getExactRating());
+                    statement.setDouble(3, user.getRatingDeviation());
+                    statement.setDouble(4, user.getRatingVolatility());
+                    statement.setLong(5, user.getId());
+                });
+    }
+
+    @Override
+    public List<User> findRatingsForUpdate(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(
+                "SELECT id, rating, exact_rating, rating_deviation, rating_volatility FROM users " +
+                "WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+                (resultSet, row) -> User.builder()
+                        .id(resultSet.getLong("id"))
+                        .rating(resultSet.getInt("rating"))
+                        .exactRating(resultSet.getObject("exact_rating", Double.class))
+                        .ratingDeviation(resultSet.getDouble("rating_deviation"))
+                        .ratingVolatility(resultSet.getDouble("rating_volatility"))
+                        .build(),
+                ids.toArray());
+    }
+}
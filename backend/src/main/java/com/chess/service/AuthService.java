@@ -28,6 +28,7 @@ public class AuthService {
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final PresenceService presenceService;
+    private final CustomUserDetailsService userDetailsService;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -44,6 +45,9 @@ public class AuthService {
 
         user = userRepository.save(user);
         log.info("User registered: {}", user.getEmail());
+        // An account that once had this email may still be cached
+        String email = user.getEmail();
+        TransactionCallbacks.afterCommit(() -> userDetailsService.evictUser(email));
 
         String token = jwtUtil.generateToken(user.getEmail(), user.getId());
         
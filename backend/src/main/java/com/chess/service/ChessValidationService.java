@@ -1,216 +1,284 @@
 package com.chess.service;
 
+import com.chess.engine.Bitboards;
+import com.chess.engine.MoveCodec;
+import com.chess.engine.Moves;
+import com.chess.engine.Piece;
+import com.chess.engine.Position;
+import com.chess.model.Game;
 import com.chess.model.Move;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Service for validating chess moves according to piece movement rules.
- * Implements basic chess rules (piece movement, turn order).
- * Does not implement: check/checkmate, en passant, castling (optional features).
+ * Service for validating chess moves according to the rules of chess.
+ * Runs on the bitboard {@link Position}: piece movement, turn order, castling, en passant,
+ * promotion, and rejection of moves that leave the mover's king in check.
+ * Reports check, checkmate and stalemate for applied moves.
  */
 @Service
 @Slf4j
 public class ChessValidationService {
 
-    private static final String INITIAL_BOARD = 
-        "rnbqkbnr" +  // rank 8
-        "pppppppp" +  // rank 7
-        "        " +  // rank 6
-        "        " +  // rank 5
-        "        " +  // rank 4
-        "        " +  // rank 3
-        "PPPPPPPP" +  // rank 2
-        "RNBQKBNR";   // rank 1
-
     /**
      * Validates a move and returns the piece being moved.
      * Throws IllegalArgumentException if move is invalid.
      */
-    public String validateAndGetPiece(List<Move> previousMoves, String from, String to, 
+    public String validateAndGetPiece(List<Move> previousMoves, String from, String to,
+                                      boolean isWhiteTurn, String promotion) {
+        return validateAndGetPiece(reconstructBoard(previousMoves), from, to, isWhiteTurn, promotion);
+    }
+
+    /**
+     * Validates a move against an already reconstructed position and returns the piece being moved.
+     * Throws IllegalArgumentException if move is invalid.
+     */
+    public String validateAndGetPiece(Position position, String from, String to,
                                       boolean isWhiteTurn, String promotion) {
-        
-        Map<String, String> board = reconstructBoard(previousMoves);
-        
-        String piece = board.get(from);
-        if (piece == null || piece.equals(" ")) {
+        int move = validate(position, Bitboards.parseSquare(from), Bitboards.parseSquare(to),
+                            isWhiteTurn, promotion);
+        return Piece.typeLetter(Piece.type(position.pieceAt(Moves.from(move))));
+    }
+
+    /**
+     * Validates a move, applies it to {@code position} in place and describes the result
+     * (moved and captured piece, SAN, resulting hash, check, mate and stalemate) in a single pass.
+     * Throws IllegalArgumentException if move is invalid, in which case the position is unchanged.
+     */
+    public MoveResult validateAndApply(Position position, String from, String to,
+                                       boolean isWhiteTurn, String promotion) {
+        int move = validate(position, Bitboards.parseSquare(from), Bitboards.parseSquare(to),
+                            isWhiteTurn, promotion);
+        return apply(position, move);
+    }
+
+    /**
+     * Applies an already validated move to {@code position} in place and describes the result.
+     */
+    private MoveResult apply(Position position, int move) {
+        int piece = position.pieceAt(Moves.from(move));
+        int promotionType = Moves.promotionType(move);
+
+        StringBuilder san = new StringBuilder(8);
+        appendSanPrefix(san, position, piece, move);
+
+        int captured = position.play(move);
+
+        if (promotionType != Piece.NONE) {
+            san.append('=').append(Piece.typeLetter(promotionType));
+        }
+        boolean check = position.isInCheck(position.sideToMove());
+        boolean hasLegalMove = position.hasLegalMove();
+        boolean checkmate = check && !hasLegalMove;
+        if (checkmate) {
+            san.append('#');
+        } else if (check) {
+            san.append('+');
+        }
+
+        return MoveResult.builder()
+                .piece(Piece.typeLetter(Piece.type(piece)))
+                .capturedPiece(captured != Piece.NONE ? Piece.letter(captured) : null)
+                .promotion(promotionType != Piece.NONE ? Piece.typeLetter(promotionType) : null)
+                .san(san.toString())
+                .encodedMove(move)
+                .positionHash(position.hash())
+                .check(check)
+                .checkmate(checkmate)
+                .stalemate(!check && !hasLegalMove)
+                .build();
+    }
+
+    /**
+     * Checks ownership, target square, movement pattern, promotion and king safety,
+     * returning the encoded move.
+     */
+    private int validate(Position position, int fromSquare, int toSquare,
+                         boolean isWhiteTurn, String promotion) {
+        int piece = fromSquare < 0 ? Piece.NONE : position.pieceAt(fromSquare);
+        if (piece == Piece.NONE) {
             throw new IllegalArgumentException("No piece at source square");
         }
-        
-        boolean isPieceWhite = Character.isUpperCase(piece.charAt(0));
-        if (isPieceWhite != isWhiteTurn) {
+
+        boolean isPieceWhite = Piece.color(piece) == Piece.WHITE;
+        if (isPieceWhite != isWhiteTurn || Piece.color(piece) != position.sideToMove()) {
             throw new IllegalArgumentException("Not your piece");
         }
-        
-        String targetPiece = board.get(to);
-        if (targetPiece != null && !targetPiece.equals(" ")) {
-            boolean isTargetWhite = Character.isUpperCase(targetPiece.charAt(0));
-            if (isTargetWhite == isPieceWhite) {
-                throw new IllegalArgumentException("Cannot capture your own piece");
-            }
+
+        if (toSquare < 0) {
+            throw new IllegalArgumentException("Invalid target square");
         }
-        
+
+        int targetPiece = position.pieceAt(toSquare);
+        if (targetPiece != Piece.NONE && Piece.color(targetPiece) == Piece.color(piece)) {
+            throw new IllegalArgumentException("Cannot capture your own piece");
+        }
+
         // Validate move pattern for piece type
-        if (!isValidMovePattern(piece, from, to, board)) {
-            throw new IllegalArgumentException("Invalid move for " + piece);
+        if ((position.targets(fromSquare) & Bitboards.bit(toSquare)) == 0) {
+            throw new IllegalArgumentException("Invalid move for " + Piece.letter(piece));
         }
-        
+
         // Handle pawn promotion
-        if ((piece.equalsIgnoreCase("P")) && (to.charAt(1) == '8' || to.charAt(1) == '1')) {
+        if (isPromotion(piece, toSquare)) {
             if (promotion == null || !isValidPromotion(promotion)) {
                 throw new IllegalArgumentException("Pawn promotion required");
             }
         }
-        
-        return piece.toUpperCase();
+
+        int move = position.encodeMove(fromSquare, toSquare, Piece.promotionType(promotion));
+        if (position.leavesKingInCheck(move)) {
+            throw new IllegalArgumentException("Move leaves king in check");
+        }
+
+        return move;
+    }
+
+    private boolean isPromotion(int piece, int toSquare) {
+        int rank = Bitboards.rank(toSquare);
+        return Piece.type(piece) == Piece.PAWN && (rank == 7 || rank == 0);
+    }
+
+    /**
+     * Appends the SAN piece letter, disambiguation and capture marker, e.g. "N", "Rad", "exd",
+     * or the castling notation. Must be called before the move is applied.
+     */
+    private void appendSanPrefix(StringBuilder san, Position position, int piece, int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+
+        if (Moves.flags(move) == Moves.KING_CASTLE) {
+            san.append("O-O");
+            return;
+        }
+        if (Moves.flags(move) == Moves.QUEEN_CASTLE) {
+            san.append("O-O-O");
+            return;
+        }
+
+        if (Piece.type(piece) == Piece.PAWN) {
+            if (Moves.isCapture(move)) {
+                san.append((char) ('a' + Bitboards.file(from))).append('x');
+            }
+        } else {
+            san.append(Piece.typeLetter(Piece.type(piece)));
+            if (Piece.type(piece) != Piece.KING) {
+                appendDisambiguation(san, position, piece, from, to);
+            }
+            if (Moves.isCapture(move)) {
+                san.append('x');
+            }
+        }
+        san.append((char) ('a' + Bitboards.file(to))).append((char) ('1' + Bitboards.rank(to)));
+    }
+
+    private void appendDisambiguation(StringBuilder san, Position position, int piece, int from, int to) {
+        long rivals = position.pieces(piece) & ~Bitboards.bit(from);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        while (rivals != 0) {
+            int rival = Long.numberOfTrailingZeros(rivals);
+            rivals &= rivals - 1;
+            if ((position.targets(rival) & Bitboards.bit(to)) != 0
+                    && !position.leavesKingInCheck(position.encodeMove(rival, to, Piece.NONE))) {
+                ambiguous = true;
+                sameFile |= Bitboards.file(rival) == Bitboards.file(from);
+                sameRank |= Bitboards.rank(rival) == Bitboards.rank(from);
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append((char) ('a' + Bitboards.file(from)));
+        } else if (!sameRank) {
+            san.append((char) ('1' + Bitboards.rank(from)));
+        } else {
+            san.append((char) ('a' + Bitboards.file(from))).append((char) ('1' + Bitboards.rank(from)));
+        }
     }
 
     /**
      * Get the piece at a given square based on move history.
      */
     public String getPieceAt(List<Move> previousMoves, String square) {
-        Map<String, String> board = reconstructBoard(previousMoves);
-        String piece = board.get(square);
-        return (piece != null && !piece.equals(" ")) ? piece : null;
+        return getPieceAt(reconstructBoard(previousMoves), square);
+    }
+
+    /**
+     * Get the piece at a given square of a position, as a FEN letter (uppercase for white).
+     */
+    public String getPieceAt(Position position, String square) {
+        int index = Bitboards.parseSquare(square);
+        int piece = index < 0 ? Piece.NONE : position.pieceAt(index);
+        return piece != Piece.NONE ? Piece.letter(piece) : null;
     }
 
     /**
      * Reconstructs the current board state from initial position + moves.
      */
-    private Map<String, String> reconstructBoard(List<Move> moves) {
-        Map<String, String> board = new HashMap<>();
-        
-        // Initialize board
-        for (int rank = 0; rank < 8; rank++) {
-            for (int file = 0; file < 8; file++) {
-                char fileChar = (char) ('a' + file);
-                char rankChar = (char) ('1' + rank);
-                String square = "" + fileChar + rankChar;
-                int index = (7 - rank) * 8 + file;
-                board.put(square, String.valueOf(INITIAL_BOARD.charAt(index)));
-            }
-        }
-        
-        // Apply moves
+    public Position reconstructBoard(List<Move> moves) {
+        Position position = Position.initial();
         for (Move move : moves) {
-            String piece = move.getPiece();
-            if (move.getPromotion() != null) {
-                piece = move.getPromotion();
-            }
-            
-            // Adjust case based on player
-            boolean isWhite = move.getMoveNumber() % 2 == 1; // Odd moves are white
-            piece = isWhite ? piece.toUpperCase() : piece.toLowerCase();
-            
-            board.put(move.getFromSquare(), " ");
-            board.put(move.getToSquare(), piece);
-        }
-        
-        return board;
+            applyMove(position, move);
+        }
+        return position;
     }
 
     /**
-     * Validates if a piece can move from 'from' to 'to' according to chess rules.
+     * Reconstructs the board from a game's packed moves (see {@link MoveCodec}).
      */
-    private boolean isValidMovePattern(String piece, String from, String to, Map<String, String> board) {
-        char pieceType = Character.toUpperCase(piece.charAt(0));
-        
-        int fromFile = from.charAt(0) - 'a';
-        int fromRank = from.charAt(1) - '1';
-        int toFile = to.charAt(0) - 'a';
-        int toRank = to.charAt(1) - '1';
-        
-        int fileDiff = Math.abs(toFile - fromFile);
-        int rankDiff = Math.abs(toRank - fromRank);
-        
-        boolean isCapture = board.get(to) != null && !board.get(to).equals(" ");
-        
-        switch (pieceType) {
-            case 'P': // Pawn
-                return isValidPawnMove(from, to, piece, isCapture, fromFile, fromRank, toFile, toRank, fileDiff, rankDiff);
-            
-            case 'N': // Knight
-                return (fileDiff == 2 && rankDiff == 1) || (fileDiff == 1 && rankDiff == 2);
-            
-            case 'B': // Bishop
-                return fileDiff == rankDiff && fileDiff > 0 && isPathClear(from, to, board);
-            
-            case 'R': // Rook
-                return (fileDiff == 0 || rankDiff == 0) && isPathClear(from, to, board);
-            
-            case 'Q': // Queen
-                return ((fileDiff == rankDiff) || (fileDiff == 0 || rankDiff == 0)) 
-                        && isPathClear(from, to, board);
-            
-            case 'K': // King
-                return fileDiff <= 1 && rankDiff <= 1 && (fileDiff + rankDiff > 0);
-            
-            default:
-                return false;
+    public Position reconstructBoard(byte[] packedMoves) {
+        Position position = Position.initial();
+        for (int move : MoveCodec.unpack(packedMoves)) {
+            position.play(move);
         }
+        return position;
     }
 
-    private boolean isValidPawnMove(String from, String to, String piece, boolean isCapture,
-                                   int fromFile, int fromRank, int toFile, int toRank,
-                                   int fileDiff, int rankDiff) {
-        boolean isWhite = Character.isUpperCase(piece.charAt(0));
-        int direction = isWhite ? 1 : -1;
-        int startRank = isWhite ? 1 : 6;
-        
-        // Forward move (no capture)
-        if (!isCapture && fileDiff == 0) {
-            if (rankDiff == 1 && toRank == fromRank + direction) {
-                return true;
-            }
-            // Initial two-square move
-            if (fromRank == startRank && rankDiff == 2 && toRank == fromRank + 2 * direction) {
-                return true;
-            }
-        }
-        
-        // Diagonal capture
-        if (isCapture && fileDiff == 1 && rankDiff == 1 && toRank == fromRank + direction) {
-            return true;
+    /**
+     * Expands a game's packed moves back into move entities by replaying them.
+     * Packed moves carry no id and no timestamp, so both are left null.
+     */
+    public List<Move> unpackMoves(Game game) {
+        int[] packed = MoveCodec.unpack(game.getPackedMoves());
+        List<Move> moves = new ArrayList<>(packed.length);
+        Position position = Position.initial();
+        for (int i = 0; i < packed.length; i++) {
+            int move = packed[i];
+            MoveResult result = apply(position, move);
+            moves.add(Move.builder()
+                    .gameId(game.getId())
+                    .playerId(i % 2 == 0 ? game.getWhitePlayerId() : game.getBlackPlayerId())
+                    .fromSquare(Bitboards.squareName(Moves.from(move)))
+                    .toSquare(Bitboards.squareName(Moves.to(move)))
+                    .piece(result.getPiece())
+                    .capturedPiece(result.getCapturedPiece())
+                    .promotion(result.getPromotion())
+                    .san(result.getSan())
+                    .moveNumber(i + 1)
+                    .build());
         }
-        
-        return false;
+        return moves;
     }
 
     /**
-     * Checks if the path between two squares is clear (for sliding pieces).
+     * Applies a persisted move to a position in place.
      */
-    private boolean isPathClear(String from, String to, Map<String, String> board) {
-        int fromFile = from.charAt(0) - 'a';
-        int fromRank = from.charAt(1) - '1';
-        int toFile = to.charAt(0) - 'a';
-        int toRank = to.charAt(1) - '1';
-        
-        int fileStep = Integer.compare(toFile, fromFile);
-        int rankStep = Integer.compare(toRank, fromRank);
-        
-        int currentFile = fromFile + fileStep;
-        int currentRank = fromRank + rankStep;
-        
-        while (currentFile != toFile || currentRank != toRank) {
-            String square = "" + (char)('a' + currentFile) + (char)('1' + currentRank);
-            String piece = board.get(square);
-            if (piece != null && !piece.equals(" ")) {
-                return false;
-            }
-            currentFile += fileStep;
-            currentRank += rankStep;
-        }
-        
-        return true;
+    public void applyMove(Position position, Move move) {
+        position.applyMove(
+                Bitboards.parseSquare(move.getFromSquare()),
+                Bitboards.parseSquare(move.getToSquare()),
+                Piece.promotionType(move.getPromotion())
+        );
     }
 
     private boolean isValidPromotion(String promotion) {
-        return promotion != null && (promotion.equals("Q") || promotion.equals("R") || 
+        return promotion != null && (promotion.equals("Q") || promotion.equals("R") ||
                                     promotion.equals("B") || promotion.equals("N"));
     }
 }
-
-
-
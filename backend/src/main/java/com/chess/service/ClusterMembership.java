@@ -0,0 +1,139 @@
+package com.chess.service;
+
+import com.chess.config.BrokerBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the live backend nodes and which of them owns each game.
+ *
+ * Nodes announce themselves with heartbeats on the {@link BrokerBus} and are dropped when they
+ * leave or stop sending heartbeats. Game ownership comes from a {@link HashRing} over the live
+ * nodes and is rebuilt, and listeners notified, whenever the membership changes.
+ * Without a bus (single node) this node owns every game.
+ */
+@Component
+@Slf4j
+public class ClusterMembership {
+
+    static final String HEARTBEAT_DESTINATION = "/cluster/heartbeat";
+    static final String LEAVE_DESTINATION = "/cluster/leave";
+
+    private final String nodeId;
+    private final ObjectProvider<BrokerBus> brokerBus;
+    private final int virtualNodes;
+    private final long nodeTimeoutMillis;
+
+    private final Map<String, Long> peers = new ConcurrentHashMap<>();
+    private final List<Consumer<HashRing>> listeners = new CopyOnWriteArrayList<>();
+    private volatile HashRing ring;
+
+    public ClusterMembership(@Value("${chess.cluster.node-id:${random.uuid}}") String nodeId,
+                             ObjectProvider<BrokerBus> brokerBus,
+                             @Value("${chess.cluster.virtual-nodes:128}") int virtualNodes,
+                             @Value("${chess.cluster.node-timeout:5000}") long nodeTimeoutMillis) {
+        this.nodeId = nodeId;
+        this.brokerBus = brokerBus;
+        this.virtualNodes = virtualNodes;
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        this.ring = new HashRing(Set.of(nodeId), virtualNodes);
+    }
+
+    @PostConstruct
+    void join() {
+        BrokerBus bus = brokerBus.getIfAvailable();
+        if (bus == null) {
+            log.info("No broker bus: node {} owns every game, so only one node may run", nodeId);
+            return;
+        }
+        bus.subscribe(this::receive);
+        heartbeat();
+    }
+
+    @PreDestroy
+    void leave() {
+        publish(LEAVE_DESTINATION);
+    }
+
+    /**
+     * Announces this node and drops peers that have not been heard from within the node timeout.
+     */
+    @Scheduled(fixedDelayString = "${chess.cluster.heartbeat-interval:1000}")
+    public void heartbeat() {
+        publish(HEARTBEAT_DESTINATION);
+        long cutoff = System.currentTimeMillis() - nodeTimeoutMillis;
+        if (peers.values().removeIf(lastSeen -> lastSeen < cutoff)) {
+            updateRing();
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String ownerOf(Long gameId) {
+        return ring.ownerOf(gameId);
+    }
+
+    public boolean isLocal(Long gameId) {
+        return nodeId.equals(ownerOf(gameId));
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Registers a callback run with the new ring after every membership change.
+     */
+    public void addListener(Consumer<HashRing> listener) {
+        listeners.add(listener);
+    }
+
+    private void receive(BrokerBus.Envelope envelope) {
+        if (nodeId.equals(envelope.origin())) {
+            return;
+        }
+        if (HEARTBEAT_DESTINATION.equals(envelope.destination())) {
+            if (peers.put(envelope.origin(), System.currentTimeMillis()) == null) {
+                // Answer right away so the new node learns about us without waiting a full interval
+                heartbeat();
+                updateRing();
+            }
+        } else if (LEAVE_DESTINATION.equals(envelope.destination())) {
+            if (peers.remove(envelope.origin()) != null) {
+                updateRing();
+            }
+        }
+    }
+
+    private void publish(String destination) {
+        brokerBus.ifAvailable(bus -> bus.publish(
+                new BrokerBus.Envelope(nodeId, destination, Map.of(), null, new byte[0])));
+    }
+
+    private synchronized void updateRing() {
+        Set<String> members = new HashSet<>(peers.keySet());
+        members.add(nodeId);
+        if (members.equals(ring.getNodes())) {
+            return;
+        }
+        HashRing updated = new HashRing(members, virtualNodes);
+        ring = updated;
+        log.info("Cluster membership changed on {}: {}", nodeId, updated.getNodes());
+        listeners.forEach(listener -> listener.accept(updated));
+    }
+}
@@ -2,16 +2,26 @@ package com.chess.service;
 
 import com.chess.model.User;
 import com.chess.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Custom UserDetailsService implementation for Spring Security.
+ *
+ * Token checks that still want to confirm the account exists go through {@link #loadCachedUser},
+ * which keeps each user for a short TTL. The cache holds at most
+ * {@code chess.jwt.user-cache-max-size} users, dropping the least recently used first.
+ * Call {@link #evictUser} when an account is changed or removed so the next request sees it
+ * immediately. Logins always read the database.
  */
 @Service
 @RequiredArgsConstructor
@@ -19,6 +29,26 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    @Value("${chess.jwt.user-cache-ttl:60000}")
+    private long userCacheTtl;
+
+    @Value("${chess.jwt.user-cache-max-size:10000}")
+    private int userCacheMaxSize;
+
+    private Map<String, CachedUser> userCache;
+
+    @PostConstruct
+    void init() {
+        int maxSize = userCacheMaxSize;
+        userCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                // Expired entries go first even while the cache is below its size limit
+                return size() > maxSize || eldest.getValue().expiresAt() <= System.currentTimeMillis();
+            }
+        };
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
@@ -31,11 +61,51 @@ public class CustomUserDetailsService implements UserDetailsService {
         );
     }
 
+    /**
+     * Same as {@link #loadUserByUsername} but served from the cache while the entry is younger
+     * than {@code chess.jwt.user-cache-ttl}. A TTL of 0 disables the cache.
+     */
+    public UserDetails loadCachedUser(String email) throws UsernameNotFoundException {
+        if (userCacheTtl <= 0) {
+            return loadUserByUsername(email);
+        }
+        long now = System.currentTimeMillis();
+        synchronized (userCache) {
+            CachedUser cached = userCache.get(email);
+            if (cached != null && cached.expiresAt() > now) {
+                return cached.details();
+            }
+        }
+        UserDetails details = loadUserByUsername(email);
+        synchronized (userCache) {
+            userCache.put(email, new CachedUser(details, now + userCacheTtl));
+        }
+        return details;
+    }
+
+    public void evictUser(String email) {
+        synchronized (userCache) {
+            userCache.remove(email);
+        }
+    }
+
+    public void evictAll() {
+        synchronized (userCache) {
+            userCache.clear();
+        }
+    }
+
+    public int cachedUsers() {
+        synchronized (userCache) {
+            return userCache.size();
+        }
+    }
+
     public User getUserByEmail(String email) {
         return userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
     }
-}
-
-
 
+    private record CachedUser(UserDetails details, long expiresAt) {
+    }
+}
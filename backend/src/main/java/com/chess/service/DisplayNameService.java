@@ -0,0 +1,83 @@
+package com.chess.service;
+
+import com.chess.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves user ids to display names for DTOs.
+ *
+ * Names are looked up in bulk with a single projection query for all ids that are not cached,
+ * so labelling a page of games or invitations costs at most one query.
+ * Display names cannot be changed, so cached entries never go stale; the cache is only bounded
+ * by size, dropping the least recently used names first.
+ */
+@Service
+@Slf4j
+public class DisplayNameService {
+
+    private final UserRepository userRepository;
+    private final Map<Long, String> cache;
+
+    public DisplayNameService(UserRepository userRepository,
+                              @Value("${chess.display-name-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the display names of the given users. Unknown ids are left out of the result.
+     */
+    public Map<Long, String> getDisplayNames(Collection<Long> userIds) {
+        Map<Long, String> names = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+
+        synchronized (cache) {
+            for (Long userId : userIds) {
+                if (userId == null) {
+                    continue;
+                }
+                String name = cache.get(userId);
+                if (name != null) {
+                    names.put(userId, name);
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            log.debug("Loading display names for {} users", missing.size());
+            Map<Long, String> loaded = new HashMap<>();
+            for (UserRepository.DisplayNameView view : userRepository.findByIdIn(missing)) {
+                loaded.put(view.getId(), view.getDisplayName());
+            }
+            synchronized (cache) {
+                cache.putAll(loaded);
+            }
+            names.putAll(loaded);
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the display name of a single user, or null if the user does not exist.
+     */
+    public String getDisplayName(Long userId) {
+        return getDisplayNames(Set.of(userId)).get(userId);
+    }
+}
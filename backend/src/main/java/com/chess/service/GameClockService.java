@@ -0,0 +1,200 @@
+package com.chess.service;
+
+import com.chess.model.Game;
+import com.chess.repository.GameRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Chess clocks for timed games.
+ *
+ * Each game stores its time control and the time left on both clocks as of the start of the
+ * current turn, so the running clock is derived from {@code turnStartedAt}. The moment the side
+ * to move would run out is kept in one {@link TimingWheel} for all games, advanced by a single
+ * scheduled tick, instead of a scheduled task per game. When a deadline passes the expiry
+ * listeners are told the game id; they confirm against the database before ending the game,
+ * so a stale or duplicate deadline is harmless. The tick only collects expired games: the
+ * listeners run on {@code chess.clock.expiry-threads} threads of their own, so a burst of flag
+ * falls does not hold up the other scheduled jobs.
+ */
+@Service
+@Slf4j
+public class GameClockService {
+
+    private final GameRepository gameRepository;
+    private final long baseTimeMillis;
+    private final long incrementMillis;
+    private final TimingWheel<Long> wheel;
+    private final ExecutorService expiryExecutor;
+
+    private final Map<Long, TimingWheel.Timeout<Long>> deadlines = new ConcurrentHashMap<>();
+    private final List<Consumer<Long>> expiryListeners = new CopyOnWriteArrayList<>();
+
+    public GameClockService(GameRepository gameRepository,
+                            @Value("${chess.clock.base-time:0}") long baseTimeMillis,
+                            @Value("${chess.clock.increment:0}") long incrementMillis,
+                            @Value("${chess.clock.tick:100}") long tickMillis,
+                            @Value("${chess.clock.wheel-size:512}") int wheelSize,
+                            @Value("${chess.clock.expiry-threads:2}") int expiryThreads) {
+        this.gameRepository = gameRepository;
+        this.baseTimeMillis = baseTimeMillis;
+        this.incrementMillis = incrementMillis;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        AtomicInteger threads = new AtomicInteger();
+        this.expiryExecutor = Executors.newFixedThreadPool(expiryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "clock-expiry-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        expiryExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the time control new games get unless another one is asked for.
+     */
+    public TimeControl defaultTimeControl() {
+        return baseTimeMillis > 0 ? new TimeControl(baseTimeMillis, incrementMillis) : TimeControl.UNTIMED;
+    }
+
+    /**
+     * Gives a new game the configured time control, starting white's clock. Games stay untimed
+     * when no base time is configured.
+     */
+    public void startClocks(Game game) {
+        startClocks(game, defaultTimeControl());
+    }
+
+    /**
+     * Gives a new game the given time control, starting white's clock.
+     */
+    public void startClocks(Game game, TimeControl timeControl) {
+        if (!timeControl.isTimed()) {
+            return;
+        }
+        game.setClockBaseMillis(timeControl.baseMillis());
+        game.setClockIncrementMillis(timeControl.incrementMillis());
+        game.setWhiteClockMillis(timeControl.baseMillis());
+        game.setBlackClockMillis(timeControl.baseMillis());
+        game.setTurnStartedAt(LocalDateTime.now());
+    }
+
+    /**
+     * Stops the mover's clock, adds the increment and starts the opponent's clock.
+     *
+     * @throws IllegalStateException if the mover's time had already run out
+     */
+    public void pressClock(Game game, boolean whiteMoved) {
+        LocalDateTime now = LocalDateTime.now();
+        long elapsed = Duration.between(game.getTurnStartedAt(), now).toMillis();
+        long remaining = (whiteMoved ? game.getWhiteClockMillis() : game.getBlackClockMillis()) - elapsed;
+        if (remaining <= 0) {
+            throw new IllegalStateException("Your time is up");
+        }
+        long next = remaining + game.getClockIncrementMillis();
+        if (whiteMoved) {
+            game.setWhiteClockMillis(next);
+        } else {
+            game.setBlackClockMillis(next);
+        }
+        game.setTurnStartedAt(now);
+    }
+
+    /**
+     * Returns the epoch millisecond at which the side to move runs out of time.
+     */
+    public static long deadlineOf(Game game) {
+        long remaining = game.getCurrentTurn() == Game.PlayerColor.WHITE
+                ? game.getWhiteClockMillis()
+                : game.getBlackClockMillis();
+        return game.getTurnStartedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + remaining;
+    }
+
+    /**
+     * Replaces the pending deadline of a game.
+     */
+    public void schedule(Long gameId, long deadlineMillis) {
+        TimingWheel.Timeout<Long> timeout = wheel.schedule(gameId, deadlineMillis);
+        TimingWheel.Timeout<Long> previous = deadlines.put(gameId, timeout);
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    /**
+     * Schedules the deadline of a timed game in progress, or drops any deadline otherwise.
+     */
+    public void update(Game game) {
+        if (game.getClockBaseMillis() != null && game.getStatus() == Game.GameStatus.IN_PROGRESS) {
+            schedule(game.getId(), deadlineOf(game));
+        } else {
+            cancel(game.getId());
+        }
+    }
+
+    public void cancel(Long gameId) {
+        TimingWheel.Timeout<Long> timeout = deadlines.remove(gameId);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    public void addExpiryListener(Consumer<Long> listener) {
+        expiryListeners.add(listener);
+    }
+
+    public int pendingDeadlines() {
+        return wheel.size();
+    }
+
+    /**
+     * Picks up the clocks of games that were in progress when the server stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreClocks() {
+        List<Game> games = gameRepository.findByStatusAndClockBaseMillisNotNull(Game.GameStatus.IN_PROGRESS);
+        games.forEach(this::update);
+        if (!games.isEmpty()) {
+            log.info("Restored clocks for {} timed games", games.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chess.clock.tick:100}")
+    public void tick() {
+        for (Long gameId : wheel.advance(System.currentTimeMillis())) {
+            // Keep the entry only if the game was rescheduled meanwhile
+            deadlines.computeIfPresent(gameId, (id, timeout) -> timeout.isPending() ? timeout : null);
+            expiryExecutor.execute(() -> notifyExpired(gameId));
+        }
+    }
+
+    private void notifyExpired(Long gameId) {
+        for (Consumer<Long> listener : expiryListeners) {
+            try {
+                listener.accept(gameId);
+            } catch (RuntimeException e) {
+                log.error("Clock check for game {} failed: {}", gameId, e.getMessage());
+            }
+        }
+    }
+}
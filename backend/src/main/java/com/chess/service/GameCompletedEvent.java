@@ -0,0 +1,10 @@
+package com.chess.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a game ends. {@code winnerId} is null for a draw.
+ */
+public record GameCompletedEvent(Long gameId, Long whitePlayerId, Long blackPlayerId, Long winnerId,
+                                 LocalDateTime completedAt) {
+}
@@ -0,0 +1,66 @@
+package com.chess.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes state-changing operations on the same game.
+ *
+ * Games are mapped onto a fixed set of lock stripes, so two frames for one game run one after
+ * the other while different games almost always proceed in parallel. The lock must be taken
+ * outside the transaction so that it is held until the transaction has committed.
+ */
+@Component
+@Slf4j
+public class GameLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    public GameLockManager(@Value("${chess.game-lock.stripes:64}") int stripeCount,
+                           @Value("${chess.game-lock.timeout:5000}") long timeoutMillis) {
+        // Round up to a power of two so a stripe can be picked with a mask
+        int size = Integer.highestOneBit(Math.max(stripeCount - 1, 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Runs {@code action} while holding the lock for {@code gameId}.
+     *
+     * @throws IllegalStateException if the lock cannot be acquired within the configured timeout
+     */
+    public <T> T withGameLock(Long gameId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(gameId);
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for game " + gameId);
+        }
+        if (!acquired) {
+            log.warn("Timed out waiting for lock on game {}", gameId);
+            throw new IllegalStateException("Game is busy, please retry");
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(Long gameId) {
+        int h = gameId.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,172 @@
+package com.chess.service;
+
+import com.chess.config.BrokerBus;
+import com.chess.dto.MoveDto;
+import com.chess.dto.MoveRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Runs every state-changing game command on the node that owns the game.
+ *
+ * Commands for a game owned here run under the game's local lock. Commands for a game owned by
+ * another node are sent to that node over the {@link BrokerBus} and run there; their results reach
+ * clients through the usual game topics. Because each game is only ever updated on its owner,
+ * the position cache and the lock stay node-local. When the owner of a game changes, the node
+ * that lost it drops its cached position and the new owner rebuilds it from the database.
+ */
+@Component
+@Slf4j
+public class GameRouter {
+
+    static final String COMMAND_DESTINATION_PREFIX = "/cluster/game-command/";
+
+    // Ownership can be briefly inconsistent while nodes join or leave; stop forwarding after this
+    private static final int MAX_HOPS = 3;
+
+    private final ClusterMembership membership;
+    private final ObjectProvider<BrokerBus> brokerBus;
+    private final GameService gameService;
+    private final GameLockManager gameLockManager;
+    private final GameStateCache gameStateCache;
+    private final MoveJournal moveJournal;
+    private final GameClockService gameClockService;
+    private final ObjectMapper objectMapper;
+
+    public GameRouter(ClusterMembership membership,
+                      ObjectProvider<BrokerBus> brokerBus,
+                      GameService gameService,
+                      GameLockManager gameLockManager,
+                      GameStateCache gameStateCache,
+                      MoveJournal moveJournal,
+                      GameClockService gameClockService,
+                      ObjectMapper objectMapper) {
+        this.membership = membership;
+        this.brokerBus = brokerBus;
+        this.gameService = gameService;
+        this.gameLockManager = gameLockManager;
+        this.gameStateCache = gameStateCache;
+        this.moveJournal = moveJournal;
+        this.gameClockService = gameClockService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void init() {
+        brokerBus.ifAvailable(bus -> bus.subscribe(this::receive));
+        // Any node may hold a deadline for a game; the owner checks it against the database
+        gameClockService.addExpiryListener(gameId -> dispatch(new GameCommand(CommandType.CLOCK, gameId, null, null, 0)));
+        membership.addListener(ring -> {
+            // The new owners read from the database, so journaled moves must be there first
+            moveJournal.flush();
+            String self = membership.getNodeId();
+            int dropped = gameStateCache.evictWhere(gameId -> !self.equals(ring.ownerOf(gameId)));
+            if (dropped > 0) {
+                log.info("Handed off {} cached games after membership change", dropped);
+            }
+        });
+    }
+
+    /**
+     * Applies a move, locally if this node owns the game, otherwise on the owner.
+     *
+     * @return the saved move, or empty if the move was forwarded to another node
+     */
+    public Optional<MoveDto> makeMove(Long gameId, Long userId, MoveRequest moveRequest) {
+        return dispatch(new GameCommand(CommandType.MOVE, gameId, userId, moveRequest, 0));
+    }
+
+    /**
+     * Resigns a game, locally if this node owns it, otherwise on the owner.
+     */
+    public void resignGame(Long gameId, Long userId) {
+        dispatch(new GameCommand(CommandType.RESIGN, gameId, userId, null, 0));
+    }
+
+    private Optional<MoveDto> dispatch(GameCommand command) {
+        String owner = membership.ownerOf(command.gameId());
+        if (owner.equals(membership.getNodeId()) || command.hops() >= MAX_HOPS || brokerBus.getIfAvailable() == null) {
+            return Optional.ofNullable(execute(command));
+        }
+        log.debug("Forwarding {} for game {} to {}", command.type(), command.gameId(), owner);
+        forward(owner, command);
+        return Optional.empty();
+    }
+
+    private MoveDto execute(GameCommand command) {
+        return runExclusively(command.gameId(), () -> switch (command.type()) {
+            case MOVE -> gameService.makeMove(command.gameId(), command.userId(), command.move());
+            case RESIGN -> {
+                gameService.resignGame(command.gameId(), command.userId());
+                yield null;
+            }
+            case CLOCK -> {
+                gameService.checkClock(command.gameId())
+                        .ifPresent(deadline -> gameClockService.schedule(command.gameId(), deadline));
+                yield null;
+            }
+        });
+    }
+
+    /**
+     * Runs a game update under the game's lock. If another writer still got in first
+     * (stale version or duplicate move number), the update is rejected as a conflict.
+     */
+    private <T> T runExclusively(Long gameId, Supplier<T> update) {
+        try {
+            return gameLockManager.withGameLock(gameId, update);
+        } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+            log.warn("Concurrent update rejected for game {}: {}", gameId, e.getMessage());
+            throw new IllegalStateException("Game was updated concurrently, please retry");
+        }
+    }
+
+    private void forward(String owner, GameCommand command) {
+        try {
+            byte[] payload = objectMapper.writeValueAsBytes(command);
+            BrokerBus.Envelope envelope = new BrokerBus.Envelope(
+                    membership.getNodeId(), COMMAND_DESTINATION_PREFIX + owner, Map.of(), "application/json", payload);
+            brokerBus.ifAvailable(bus -> bus.publish(envelope));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not forward game command", e);
+        }
+    }
+
+    private void receive(BrokerBus.Envelope envelope) {
+        if (!(COMMAND_DESTINATION_PREFIX + membership.getNodeId()).equals(envelope.destination())) {
+            return;
+        }
+        GameCommand command;
+        try {
+            command = objectMapper.readValue(envelope.payload(), GameCommand.class);
+        } catch (IOException e) {
+            log.error("Dropping unreadable game command from {}", envelope.origin(), e);
+            return;
+        }
+        try {
+            dispatch(command.nextHop());
+        } catch (RuntimeException e) {
+            log.error("Forwarded {} for game {} from {} failed: {}",
+                    command.type(), command.gameId(), envelope.origin(), e.getMessage());
+        }
+    }
+
+    enum CommandType { MOVE, RESIGN, CLOCK }
+
+    record GameCommand(CommandType type, Long gameId, Long userId, MoveRequest move, int hops) {
+        GameCommand nextHop() {
+            return new GameCommand(type, gameId, userId, move, hops + 1);
+        }
+    }
+}
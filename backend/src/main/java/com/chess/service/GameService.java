@@ -1,23 +1,38 @@
 package com.chess.service;
 
 import com.chess.dto.GameDto;
+import com.chess.dto.GameHistoryPage;
 import com.chess.dto.MoveDto;
 import com.chess.dto.MoveRequest;
+import com.chess.engine.MoveCodec;
+import com.chess.engine.Position;
 import com.chess.model.Game;
 import com.chess.model.Move;
-import com.chess.model.User;
 import com.chess.repository.GameRepository;
 import com.chess.repository.MoveRepository;
-import com.chess.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.Random;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service handling game logic and move management.
@@ -29,14 +44,66 @@ public class GameService {
 
     private final GameRepository gameRepository;
     private final MoveRepository moveRepository;
-    private final UserRepository userRepository;
+    private final DisplayNameService displayNameService;
     private final SimpMessagingTemplate messagingTemplate;
     private final ChessValidationService validationService;
+    private final GameStateCache gameStateCache;
+    private final MoveJournal moveJournal;
+    private final GameClockService gameClockService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Fifty moves by each side without a capture or pawn move
+    private static final int FIFTY_MOVE_RULE_PLIES = 100;
+    private static final int REPETITION_DRAW_COUNT = 3;
+
+    private static final Comparator<Game> NEWEST_FIRST = Comparator
+            .comparing(Game::getCreatedAt)
+            .thenComparing(Game::getId)
+            .reversed();
+
+    @Value("${chess.history.max-page-size:100}")
+    private int maxHistoryPageSize;
+
+    @Value("${chess.move-storage.packed:false}")
+    private boolean packedMoveStorage;
 
     @Transactional
     public GameDto createGame(Long player1Id, Long player2Id) {
-        // Randomly assign white and black
+        return createGame(player1Id, player2Id, null);
+    }
+
+    /**
+     * Creates a game with the given time control, or the configured one if it is null.
+     */
+    @Transactional
+    public GameDto createGame(Long player1Id, Long player2Id, TimeControl timeControl) {
+        Game game = gameRepository.save(newGame(player1Id, player2Id, timeControl, new Random()));
+        gameClockService.update(game);
+        log.info("Game created: {} (White: {}, Black: {})", game.getId(), 
+                 game.getWhitePlayerId(), game.getBlackPlayerId());
+
+        return enrichGameDto(game);
+    }
+
+    /**
+     * Creates a game for each pairing in one transaction, so the inserts go out in JDBC batches.
+     * The games are returned in the order of the pairings.
+     */
+    @Transactional
+    public List<GameDto> createGames(List<Pairing> pairings) {
         Random random = new Random();
+        List<Game> games = gameRepository.saveAll(pairings.stream()
+                .map(pairing -> newGame(pairing.firstPlayerId(), pairing.secondPlayerId(),
+                        pairing.timeControl(), random))
+                .toList());
+        games.forEach(gameClockService::update);
+        log.info("Created {} games", games.size());
+
+        return enrichGameDtos(games);
+    }
+
+    private Game newGame(Long player1Id, Long player2Id, TimeControl timeControl, Random random) {
+        // Randomly assign white and black
         boolean player1IsWhite = random.nextBoolean();
 
         Game game = Game.builder()
@@ -45,13 +112,14 @@ public class GameService {
                 .status(Game.GameStatus.IN_PROGRESS)
                 .currentTurn(Game.PlayerColor.WHITE)
                 .moveCount(0)
+                .packedMoves(packedMoveStorage ? new byte[0] : null)
                 .build();
-
-        game = gameRepository.save(game);
-        log.info("Game created: {} (White: {}, Black: {})", game.getId(), 
-                 game.getWhitePlayerId(), game.getBlackPlayerId());
-
-        return enrichGameDto(game);
+        if (timeControl != null) {
+            gameClockService.startClocks(game, timeControl);
+        } else {
+            gameClockService.startClocks(game);
+        }
+        return game;
     }
 
     @Transactional(readOnly = true)
@@ -61,8 +129,11 @@ public class GameService {
         
         GameDto gameDto = enrichGameDto(game);
         
-        // Load moves
-        List<MoveDto> moves = moveRepository.findByGameIdOrderByMoveNumberAsc(gameId).stream()
+        // Load moves; a packed game already holds them in its row
+        List<Move> stored = game.getPackedMoves() != null
+                ? validationService.unpackMoves(game)
+                : withPendingMoves(gameId, moveRepository.findByGameIdOrderByMoveNumberAsc(gameId));
+        List<MoveDto> moves = stored.stream()
                 .map(MoveDto::fromEntity)
                 .collect(Collectors.toList());
         
@@ -79,24 +150,34 @@ public class GameService {
             throw new IllegalStateException("Game is not in progress");
         }
 
+        // Packed games keep their moves in the games row and never go through the journal
+        boolean packed = game.getPackedMoves() != null;
+
+        // Moves still in the journal are ahead of the games row
+        List<Move> pending = moveJournal.pendingMoves(gameId);
+        int ply = currentPly(game, pending);
+
         // Verify it's the player's turn
-        boolean isWhiteTurn = game.getCurrentTurn() == Game.PlayerColor.WHITE;
+        boolean isWhiteTurn = pending.isEmpty() ? game.getCurrentTurn() == Game.PlayerColor.WHITE : ply % 2 == 0;
         boolean isWhitePlayer = game.getWhitePlayerId().equals(userId);
 
         if (isWhiteTurn != isWhitePlayer) {
             throw new IllegalStateException("It's not your turn");
         }
 
-        // Get current board state
-        List<Move> previousMoves = moveRepository.findByGameIdOrderByMoveNumberAsc(gameId);
-        
-        // Validate move using chess rules
-        String piece = validationService.validateAndGetPiece(
-                previousMoves, moveRequest.getFrom(), moveRequest.getTo(), isWhiteTurn, moveRequest.getPromotion()
+        // Validate and apply on a working copy of the live position; the cache adopts it after commit
+        Position position = packed
+                ? gameStateCache.getWorkingCopy(game)
+                : gameStateCache.getWorkingCopy(gameId, ply, pending);
+        MoveResult result = validationService.validateAndApply(
+                position, moveRequest.getFrom(), moveRequest.getTo(), isWhiteTurn, moveRequest.getPromotion()
         );
 
-        // Check if capture occurred
-        String capturedPiece = validationService.getPieceAt(previousMoves, moveRequest.getTo());
+        // Timed games keep their clocks in the games row, which is then written on every move
+        boolean timed = game.getClockBaseMillis() != null;
+        if (timed) {
+            gameClockService.pressClock(game, isWhiteTurn);
+        }
 
         // Create move
         Move move = Move.builder()
@@ -104,34 +185,85 @@ public class GameService {
                 .playerId(userId)
                 .fromSquare(moveRequest.getFrom())
                 .toSquare(moveRequest.getTo())
-                .piece(piece)
-                .capturedPiece(capturedPiece)
-                .promotion(moveRequest.getPromotion())
-                .san(generateSAN(piece, moveRequest, capturedPiece != null))
-                .moveNumber(game.getMoveCount() + 1)
+                .piece(result.getPiece())
+                .capturedPiece(result.getCapturedPiece())
+                .promotion(result.getPromotion())
+                .san(result.getSan())
+                .moveNumber(ply + 1)
                 .build();
 
-        move = moveRepository.save(move);
-
-        // Update game
-        game.setMoveCount(game.getMoveCount() + 1);
-        game.setCurrentTurn(isWhiteTurn ? Game.PlayerColor.BLACK : Game.PlayerColor.WHITE);
-        gameRepository.save(game);
+        String drawReason = drawReason(game, ply, pending, position, result);
+
+        // With the journal the games row is brought up to date when the move is flushed, so it is
+        // only written here for packed and timed games and when the game ends. A move whose
+        // transaction writes the row is saved in that transaction too, so the two commit together.
+        boolean writesRow = packed || timed || !moveJournal.isEnabled() || result.isCheckmate() || drawReason != null;
+        if (packed) {
+            move.setCreatedAt(LocalDateTime.now());
+            game.setPackedMoves(MoveCodec.append(game.getPackedMoves(), result.getEncodedMove()));
+        } else if (!writesRow) {
+            move.setCreatedAt(LocalDateTime.now());
+            Move journaled = move;
+            // Journaled only once committed, so a rolled-back move is never flushed later
+            TransactionCallbacks.afterCommit(() -> moveJournal.append(journaled));
+        } else {
+            move = moveRepository.save(move);
+        }
+        gameStateCache.recordMove(gameId, move, position);
+
+        if (writesRow) {
+            game.setMoveCount(ply + 1);
+            game.setCurrentTurn(isWhiteTurn ? Game.PlayerColor.BLACK : Game.PlayerColor.WHITE);
+            if (result.isCheckmate()) {
+                finishGame(game, Game.GameStatus.COMPLETED, userId);
+            } else if (drawReason != null) {
+                finishGame(game, Game.GameStatus.DRAW, null);
+                log.info("Game {} drawn by {}", gameId, drawReason);
+            }
+            gameRepository.save(game);
+        }
+        if (timed) {
+            gameClockService.update(game);
+        }
 
         log.info("Move made in game {}: {} -> {}", gameId, moveRequest.getFrom(), moveRequest.getTo());
 
         MoveDto moveDto = MoveDto.fromEntity(move);
+        if (timed) {
+            moveDto.setWhiteClockMillis(game.getWhiteClockMillis());
+            moveDto.setBlackClockMillis(game.getBlackClockMillis());
+        }
         
-        // Broadcast move to all subscribers
+        // Broadcast move to all subscribers, once it is committed (and journaled)
         String topic = "/topic/game/" + gameId + "/moves";
-        messagingTemplate.convertAndSend(topic, moveDto);
-        log.info("✅ Move broadcasted to topic: {} with move ID: {}", topic, moveDto.getId());
+        GameDto endedGame = game.getStatus() != Game.GameStatus.IN_PROGRESS ? enrichGameDto(game) : null;
+        TransactionCallbacks.afterCommit(() -> {
+            messagingTemplate.convertAndSend(topic, moveDto);
+            log.info("✅ Move broadcasted to topic: {} with move ID: {}", topic, moveDto.getId());
+
+            if (endedGame != null) {
+                String endTopic = "/topic/game/" + gameId + "/ended";
+                messagingTemplate.convertAndSend(endTopic, endedGame);
+                log.info("Game {} ended by {} | Winner: {} | Status: {}",
+                         gameId, result.getSan(), endedGame.getWinnerId(), endedGame.getStatus());
+            }
+        });
 
         return moveDto;
     }
 
     @Transactional(readOnly = true)
     public List<MoveDto> getGameMoves(Long gameId, Long lastMoveId) {
+        // Packed moves have no ids, so a packed game always returns its full list
+        Game packedGame = gameRepository.findById(gameId)
+                .filter(game -> game.getPackedMoves() != null)
+                .orElse(null);
+        if (packedGame != null) {
+            return validationService.unpackMoves(packedGame).stream()
+                    .map(MoveDto::fromEntity)
+                    .collect(Collectors.toList());
+        }
+
         List<Move> moves;
         if (lastMoveId != null && lastMoveId > 0) {
             moves = moveRepository.findByGameIdAndIdGreaterThanOrderByMoveNumberAsc(gameId, lastMoveId);
@@ -139,17 +271,70 @@ public class GameService {
             moves = moveRepository.findByGameIdOrderByMoveNumberAsc(gameId);
         }
         
-        return moves.stream()
+        return withPendingMoves(gameId, moves).stream()
                 .map(MoveDto::fromEntity)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns one page of a player's games, newest first, using keyset pagination on (createdAt, id).
+     *
+     * The white and black sides are read separately so each query is served by its
+     * (player, createdAt) index, then merged. Moves are only loaded when {@code includeMoves} is set.
+     */
     @Transactional(readOnly = true)
-    public List<GameDto> getUserGames(Long userId) {
-        List<Game> games = gameRepository.findByPlayerId(userId);
-        return games.stream()
-                .map(this::enrichGameDto)
-                .collect(Collectors.toList());
+    public GameHistoryPage getGameHistory(Long userId, String cursor, int limit, boolean includeMoves) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        int pageSize = Math.min(limit, maxHistoryPageSize);
+        // One extra row per side tells us whether another page exists
+        Pageable fetch = PageRequest.of(0, pageSize + 1);
+
+        List<Game> candidates = new ArrayList<>();
+        if (cursor == null || cursor.isBlank()) {
+            candidates.addAll(gameRepository.findByWhitePlayerIdOrderByCreatedAtDescIdDesc(userId, fetch));
+            candidates.addAll(gameRepository.findByBlackPlayerIdOrderByCreatedAtDescIdDesc(userId, fetch));
+        } else {
+            Game after = decodeCursor(cursor);
+            candidates.addAll(gameRepository.findWhiteGamesBefore(userId, after.getCreatedAt(), after.getId(), fetch));
+            candidates.addAll(gameRepository.findBlackGamesBefore(userId, after.getCreatedAt(), after.getId(), fetch));
+        }
+        candidates.sort(NEWEST_FIRST);
+
+        boolean hasMore = candidates.size() > pageSize;
+        List<Game> page = hasMore ? candidates.subList(0, pageSize) : candidates;
+        List<GameDto> games = enrichGameDtos(page);
+
+        if (includeMoves && !games.isEmpty()) {
+            List<Long> rowGameIds = page.stream()
+                    .filter(game -> game.getPackedMoves() == null)
+                    .map(Game::getId)
+                    .toList();
+            Map<Long, List<MoveDto>> movesByGame = new HashMap<>();
+            if (!rowGameIds.isEmpty()) {
+                moveRepository.findByGameIdInOrderByGameIdAscMoveNumberAsc(rowGameIds).stream()
+                        .map(MoveDto::fromEntity)
+                        .forEach(move -> movesByGame.computeIfAbsent(move.getGameId(), id -> new ArrayList<>()).add(move));
+            }
+            page.stream()
+                    .filter(game -> game.getPackedMoves() != null)
+                    .forEach(game -> movesByGame.put(game.getId(), validationService.unpackMoves(game).stream()
+                            .map(MoveDto::fromEntity)
+                            .collect(Collectors.toList())));
+            games.forEach(dto -> dto.setMoves(movesByGame.getOrDefault(dto.getId(), List.of())));
+        }
+
+        return GameHistoryPage.builder()
+                .games(games)
+                .nextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean hasActiveGame(Long userId) {
+        return gameRepository.existsByPlayerIdAndStatus(userId, Game.GameStatus.IN_PROGRESS);
     }
 
     @Transactional(readOnly = true)
@@ -162,40 +347,77 @@ public class GameService {
     }
 
     private GameDto enrichGameDto(Game game) {
-        GameDto dto = GameDto.fromEntity(game);
-        
-        userRepository.findById(game.getWhitePlayerId()).ifPresent(user -> 
-            dto.setWhitePlayerName(user.getDisplayName())
-        );
-        
-        userRepository.findById(game.getBlackPlayerId()).ifPresent(user -> 
-            dto.setBlackPlayerName(user.getDisplayName())
-        );
-        
-        return dto;
+        return enrichGameDtos(List.of(game)).get(0);
     }
 
-    private String generateSAN(String piece, MoveRequest moveRequest, boolean isCapture) {
-        StringBuilder san = new StringBuilder();
-        
-        if (!"P".equals(piece)) {
-            san.append(piece);
+    /**
+     * Converts games to DTOs, resolving every player name with a single lookup.
+     */
+    private List<GameDto> enrichGameDtos(List<Game> games) {
+        Map<Long, String> names = displayNameService.getDisplayNames(games.stream()
+                .flatMap(game -> Stream.of(game.getWhitePlayerId(), game.getBlackPlayerId()))
+                .collect(Collectors.toSet()));
+
+        return games.stream()
+                .map(game -> {
+                    GameDto dto = GameDto.fromEntity(game);
+                    dto.setWhitePlayerName(names.get(game.getWhitePlayerId()));
+                    dto.setBlackPlayerName(names.get(game.getBlackPlayerId()));
+                    List<Move> pending = moveJournal.pendingMoves(game.getId());
+                    if (!pending.isEmpty()) {
+                        int ply = currentPly(game, pending);
+                        dto.setMoveCount(ply);
+                        dto.setCurrentTurn((ply % 2 == 0 ? Game.PlayerColor.WHITE : Game.PlayerColor.BLACK).name());
+                    }
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns why the game is drawn after a move, or null if it goes on. {@code position} is the
+     * position after move {@code ply + 1}; the game's repetition table does not include it yet.
+     */
+    private String drawReason(Game game, int ply, List<Move> pending, Position position, MoveResult result) {
+        if (result.isCheckmate()) {
+            return null;
         }
-        
-        if (isCapture) {
-            if ("P".equals(piece)) {
-                san.append(moveRequest.getFrom().charAt(0)); // file of pawn
-            }
-            san.append("x");
+        if (result.isStalemate()) {
+            return "stalemate";
         }
-        
-        san.append(moveRequest.getTo());
-        
-        if (moveRequest.getPromotion() != null) {
-            san.append("=").append(moveRequest.getPromotion());
+        // A capture or pawn move resets the clock and makes every earlier position unreachable
+        if (position.halfmoveClock() > 0
+                && gameStateCache.countRepetitions(game, ply, pending, position.hash()) + 1 >= REPETITION_DRAW_COUNT) {
+            return "threefold repetition";
         }
-        
-        return san.toString();
+        if (position.halfmoveClock() >= FIFTY_MOVE_RULE_PLIES) {
+            return "fifty-move rule";
+        }
+        return null;
+    }
+
+    /**
+     * Number of moves played, counting journaled moves that are not in the games row yet.
+     */
+    private static int currentPly(Game game, List<Move> pending) {
+        if (pending.isEmpty()) {
+            return game.getMoveCount();
+        }
+        return Math.max(game.getMoveCount(), pending.get(pending.size() - 1).getMoveNumber());
+    }
+
+    /**
+     * Appends journaled moves that come after {@code stored}, the moves read from the database.
+     */
+    private List<Move> withPendingMoves(Long gameId, List<Move> stored) {
+        List<Move> pending = moveJournal.pendingMoves(gameId);
+        if (pending.isEmpty()) {
+            return stored;
+        }
+        int lastStored = stored.isEmpty() ? 0 : stored.get(stored.size() - 1).getMoveNumber();
+        List<Move> moves = new ArrayList<>(stored);
+        pending.stream().filter(move -> move.getMoveNumber() > lastStored).forEach(moves::add);
+        return moves;
     }
 
     @Transactional
@@ -212,26 +434,23 @@ public class GameService {
         String resignedPlayerName;
         String winnerPlayerName;
         
+        Map<Long, String> names = displayNameService.getDisplayNames(
+                List.of(game.getWhitePlayerId(), game.getBlackPlayerId()));
+
         if (game.getWhitePlayerId().equals(userId)) {
             winnerId = game.getBlackPlayerId();
-            resignedPlayerName = userRepository.findById(userId)
-                    .map(u -> u.getDisplayName()).orElse("White");
-            winnerPlayerName = userRepository.findById(winnerId)
-                    .map(u -> u.getDisplayName()).orElse("Black");
+            resignedPlayerName = names.getOrDefault(userId, "White");
+            winnerPlayerName = names.getOrDefault(winnerId, "Black");
         } else if (game.getBlackPlayerId().equals(userId)) {
             winnerId = game.getWhitePlayerId();
-            resignedPlayerName = userRepository.findById(userId)
-                    .map(u -> u.getDisplayName()).orElse("Black");
-            winnerPlayerName = userRepository.findById(winnerId)
-                    .map(u -> u.getDisplayName()).orElse("White");
+            resignedPlayerName = names.getOrDefault(userId, "Black");
+            winnerPlayerName = names.getOrDefault(winnerId, "White");
         } else {
             throw new IllegalArgumentException("You are not a player in this game");
         }
 
         // Mark game as finished to prevent any further moves
-        game.setStatus(Game.GameStatus.COMPLETED);
-        game.setWinnerId(winnerId);
-        game.setCompletedAt(java.time.LocalDateTime.now());
+        finishGame(game, Game.GameStatus.COMPLETED, winnerId);
         game = gameRepository.save(game);
 
         log.info("Game {} resigned by user {} ({}). Winner: {} ({})", 
@@ -249,6 +468,71 @@ public class GameService {
 
         return gameDto;
     }
-}
 
+    /**
+     * Ends a timed game whose side to move has run out of time, awarding it to the opponent.
+     *
+     * @return the deadline still ahead if the flag has not fallen, or empty if the game is over or untimed
+     */
+    @Transactional
+    public OptionalLong checkClock(Long gameId) {
+        Game game = gameRepository.findById(gameId).orElse(null);
+        if (game == null || game.getStatus() != Game.GameStatus.IN_PROGRESS || game.getClockBaseMillis() == null) {
+            return OptionalLong.empty();
+        }
+        long deadline = GameClockService.deadlineOf(game);
+        if (System.currentTimeMillis() < deadline) {
+            return OptionalLong.of(deadline);
+        }
+
+        boolean whiteFlagged = game.getCurrentTurn() == Game.PlayerColor.WHITE;
+        if (whiteFlagged) {
+            game.setWhiteClockMillis(0L);
+        } else {
+            game.setBlackClockMillis(0L);
+        }
+        finishGame(game, Game.GameStatus.ABANDONED, whiteFlagged ? game.getBlackPlayerId() : game.getWhitePlayerId());
+        game = gameRepository.save(game);
+
+        GameDto gameDto = enrichGameDto(game);
+        String timeoutTopic = "/topic/game/" + gameId + "/timeout";
+        messagingTemplate.convertAndSend(timeoutTopic, gameDto);
+        log.info("Game {} lost on time by {} | Winner: {}", gameId, whiteFlagged ? "white" : "black", gameDto.getWinnerId());
+        return OptionalLong.empty();
+    }
+
+    private static String encodeCursor(Game game) {
+        String raw = game.getCreatedAt() + "|" + game.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a history cursor into a game carrying only the createdAt and id to continue after.
+     */
+    private static Game decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return Game.builder()
+                    .createdAt(LocalDateTime.parse(raw.substring(0, separator)))
+                    .id(Long.parseLong(raw.substring(separator + 1)))
+                    .build();
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
 
+    /**
+     * Marks a game as finished, drops its clock deadline and drops its cached position once the
+     * transaction commits. Publishes a {@link GameCompletedEvent} for the rating update.
+     */
+    private void finishGame(Game game, Game.GameStatus status, Long winnerId) {
+        game.setStatus(status);
+        game.setWinnerId(winnerId);
+        game.setCompletedAt(LocalDateTime.now());
+        gameStateCache.evict(game.getId());
+        gameClockService.cancel(game.getId());
+        eventPublisher.publishEvent(new GameCompletedEvent(game.getId(), game.getWhitePlayerId(),
+                game.getBlackPlayerId(), winnerId, game.getCompletedAt()));
+    }
+}
@@ -0,0 +1,220 @@
+package com.chess.service;
+
+import com.chess.engine.MoveCodec;
+import com.chess.engine.Position;
+import com.chess.engine.RepetitionTable;
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.repository.MoveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-memory cache of live game positions, keyed by game id.
+ *
+ * Positions are rebuilt from the move table (or from the game row for packed games) on a miss and
+ * then kept up to date by applying each committed move, so validating a move no longer replays
+ * the game's history. Each entry also keeps a {@link RepetitionTable} for draw detection, and a
+ * second position that moves are validated on, so making a move allocates no position.
+ * Entries are dropped when a game ends or has been idle for longer than the configured timeout.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GameStateCache {
+
+    private final MoveRepository moveRepository;
+    private final ChessValidationService validationService;
+
+    @Value("${chess.game-cache.idle-timeout:1800000}")
+    private long idleTimeoutMillis;
+
+    private final Map<Long, CachedGame> games = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the live position for a game, rebuilding it from the database if it is not cached
+     * or if the cached copy does not match the game's move count.
+     * The returned position is shared and must not be modified by the caller; copy it first.
+     */
+    public Position getPosition(Game game) {
+        if (game.getPackedMoves() != null) {
+            return getPosition(game.getId(), game.getMoveCount(), () -> loadPacked(game));
+        }
+        return getPosition(game.getId(), game.getMoveCount(), List.of());
+    }
+
+    /**
+     * Returns the position after {@code ply} moves. On a rebuild, {@code pending} moves not yet in
+     * the database (see {@link MoveJournal}) are replayed after the stored ones.
+     */
+    public Position getPosition(Long gameId, int ply, List<Move> pending) {
+        return getPosition(gameId, ply, () -> load(gameId, pending));
+    }
+
+    private Position getPosition(Long gameId, int ply, Supplier<CachedGame> loader) {
+        return getEntry(gameId, ply, loader).position;
+    }
+
+    /**
+     * Returns a working copy of the live position of a game, for applying a move and handing it
+     * to {@link #recordMove}. The copy is the entry's scratch position, overwritten by the next
+     * call for the same game, so the caller must hold the game's lock until the move commits.
+     */
+    public Position getWorkingCopy(Game game) {
+        if (game.getPackedMoves() != null) {
+            return getWorkingCopy(game.getId(), game.getMoveCount(), () -> loadPacked(game));
+        }
+        return getWorkingCopy(game.getId(), game.getMoveCount(), () -> load(game.getId(), List.of()));
+    }
+
+    /**
+     * Returns a working copy of the position after {@code ply} moves; see {@link #getWorkingCopy(Game)}
+     * and {@link #getPosition(Long, int, List)}.
+     */
+    public Position getWorkingCopy(Long gameId, int ply, List<Move> pending) {
+        return getWorkingCopy(gameId, ply, () -> load(gameId, pending));
+    }
+
+    private Position getWorkingCopy(Long gameId, int ply, Supplier<CachedGame> loader) {
+        CachedGame cached = getEntry(gameId, ply, loader);
+        cached.scratch.copyFrom(cached.position);
+        return cached.scratch;
+    }
+
+    private CachedGame getEntry(Long gameId, int ply, Supplier<CachedGame> loader) {
+        CachedGame cached = games.get(gameId);
+        if (cached == null || cached.ply != ply) {
+            cached = loader.get();
+            games.put(gameId, cached);
+        }
+        cached.lastAccess = System.currentTimeMillis();
+        return cached;
+    }
+
+    /**
+     * Returns how many times the position with {@code hash} has occurred in a game since its last
+     * capture or pawn move, among the first {@code ply} moves. If the game was evicted since its
+     * position was read, it is rebuilt like in {@link #getPosition(Long, int, List)}, so a
+     * repetition is never missed.
+     */
+    public int countRepetitions(Game game, int ply, List<Move> pending, long hash) {
+        CachedGame cached = game.getPackedMoves() != null
+                ? getEntry(game.getId(), ply, () -> loadPacked(game))
+                : getEntry(game.getId(), ply, () -> load(game.getId(), pending));
+        synchronized (cached) {
+            return cached.repetitions.count(hash);
+        }
+    }
+
+    /**
+     * Replaces the cached position with {@code resulting}, the position after {@code move},
+     * once the surrounding transaction commits. If the transaction rolls back, the cached
+     * position is left untouched.
+     */
+    public void recordMove(Long gameId, Move move, Position resulting) {
+        TransactionCallbacks.afterCommit(() -> {
+            CachedGame cached = games.get(gameId);
+            if (cached == null) {
+                return;
+            }
+            synchronized (cached) {
+                if (cached.ply == move.getMoveNumber() - 1) {
+                    // The old live position becomes the scratch for the next move
+                    if (resulting == cached.scratch) {
+                        cached.scratch = cached.position;
+                    }
+                    cached.position = resulting;
+                    cached.ply = move.getMoveNumber();
+                    cached.repetitions.add(resulting);
+                } else {
+                    games.remove(gameId, cached);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops a game's cached position once the surrounding transaction commits.
+     */
+    public void evict(Long gameId) {
+        TransactionCallbacks.afterCommit(() -> games.remove(gameId));
+    }
+
+    /**
+     * Drops every cached game matching {@code gameIds} immediately, e.g. games that moved to another node.
+     *
+     * @return the number of games dropped
+     */
+    public int evictWhere(Predicate<Long> gameIds) {
+        int before = games.size();
+        games.keySet().removeIf(gameIds);
+        return before - games.size();
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    @Scheduled(fixedDelayString = "${chess.game-cache.sweep-interval:60000}")
+    public void evictIdleGames() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        int before = games.size();
+        games.values().removeIf(cached -> cached.lastAccess < cutoff);
+        int evicted = before - games.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle games from position cache", evicted);
+        }
+    }
+
+    private CachedGame load(Long gameId, List<Move> pending) {
+        List<Move> moves = moveRepository.findByGameIdOrderByMoveNumberAsc(gameId);
+        if (!pending.isEmpty()) {
+            int stored = moves.size();
+            moves = new ArrayList<>(moves);
+            pending.stream().filter(move -> move.getMoveNumber() > stored).forEach(moves::add);
+        }
+        log.debug("Position cache miss for game {}, replaying {} moves", gameId, moves.size());
+        CachedGame cached = new CachedGame(Position.initial(), moves.size());
+        for (Move move : moves) {
+            validationService.applyMove(cached.position, move);
+            cached.repetitions.add(cached.position);
+        }
+        return cached;
+    }
+
+    private CachedGame loadPacked(Game game) {
+        int[] moves = MoveCodec.unpack(game.getPackedMoves());
+        log.debug("Position cache miss for game {}, replaying {} packed moves", game.getId(), moves.length);
+        CachedGame cached = new CachedGame(Position.initial(), moves.length);
+        for (int move : moves) {
+            cached.position.play(move);
+            cached.repetitions.add(cached.position);
+        }
+        return cached;
+    }
+
+    private static final class CachedGame {
+        private volatile Position position;
+        private volatile Position scratch = Position.initial();
+        private volatile int ply;
+        private volatile long lastAccess;
+        private final RepetitionTable repetitions = new RepetitionTable();
+
+        private CachedGame(Position position, int ply) {
+            this.position = position;
+            this.ply = ply;
+            this.lastAccess = System.currentTimeMillis();
+            repetitions.add(position);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.chess.service;
+
+/**
+ * The Glicko-2 rating system (Glickman, "Example of the Glicko-2 system", 2013).
+ *
+ * A rating comes with a deviation, how uncertain it is, and a volatility, how erratic the
+ * player's results are. Ratings are updated once per rating period from all games played in it;
+ * this server treats every game as its own period, so results count as soon as they are in.
+ * Nothing here is tied to the database; callers pass ratings in and store what comes out.
+ */
+public final class Glicko2 {
+
+    // Converts between the Glicko scale and the Glicko-2 scale
+    private static final double SCALE = 173.7178;
+    private static final double BASE_RATING = 1500;
+    private static final double CONVERGENCE = 0.000001;
+
+    private final double tau;
+
+    /**
+     * @param tau constrains how fast volatility changes; Glickman suggests 0.3 to 1.2
+     */
+    public Glicko2(double tau) {
+        if (tau <= 0) {
+            throw new IllegalArgumentException("Tau must be positive");
+        }
+        this.tau = tau;
+    }
+
+    /**
+     * Rates a single game. {@code score} is 1 for a win, 0.5 for a draw and 0 for a loss.
+     */
+    public Rating update(Rating player, Rating opponent, double score) {
+        return update(player, new Rating[]{opponent}, new double[]{score});
+    }
+
+    /**
+     * Rates one period in which {@code player} met {@code opponents[i]} with result {@code scores[i]}.
+     */
+    public Rating update(Rating player, Rating[] opponents, double[] scores) {
+        if (opponents.length != scores.length) {
+            throw new IllegalArgumentException("Each opponent needs a score");
+        }
+        double mu = (player.rating() - BASE_RATING) / SCALE;
+        double phi = player.deviation() / SCALE;
+        double sigma = player.volatility();
+        if (opponents.length == 0) {
+            // A period without games only makes the rating less certain
+            return new Rating(player.rating(), Math.sqrt(phi * phi + sigma * sigma) * SCALE, sigma);
+        }
+
+        double vInverse = 0;
+        double improvement = 0;
+        for (int i = 0; i < opponents.length; i++) {
+            double muJ = (opponents[i].rating() - BASE_RATING) / SCALE;
+            double g = g(opponents[i].deviation() / SCALE);
+            double expected = 1 / (1 + Math.exp(-g * (mu - muJ)));
+            vInverse += g * g * expected * (1 - expected);
+            improvement += g * (scores[i] - expected);
+        }
+        double v = 1 / vInverse;
+        double delta = v * improvement;
+
+        double newSigma = volatility(delta, phi, v, sigma);
+        double phiStar = Math.sqrt(phi * phi + newSigma * newSigma);
+        double newPhi = 1 / Math.sqrt(1 / (phiStar * phiStar) + 1 / v);
+        double newMu = mu + newPhi * newPhi * improvement;
+
+        return new Rating(newMu * SCALE + BASE_RATING, newPhi * SCALE, newSigma);
+    }
+
+    private static double g(double phi) {
+        return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    /**
+     * Finds the new volatility with the Illinois variant of regula falsi (step 5 of the paper).
+     */
+    private double volatility(double delta, double phi, double v, double sigma) {
+        double a = Math.log(sigma * sigma);
+        double lower = a;
+        double upper;
+        if (delta * delta > phi * phi + v) {
+            upper = Math.log(delta * delta - phi * phi - v);
+        } else {
+            int k = 1;
+            while (f(a - k * tau, delta, phi, v, a) < 0) {
+                k++;
+            }
+            upper = a - k * tau;
+        }
+
+        double fLower = f(lower, delta, phi, v, a);
+        double fUpper = f(upper, delta, phi, v, a);
+        while (Math.abs(upper - lower) > CONVERGENCE) {
+            double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+            double fC = f(c, delta, phi, v, a);
+            if (fC * fUpper <= 0) {
+                lower = upper;
+                fLower = fUpper;
+            } else {
+                fLower /= 2;
+            }
+            upper = c;
+            fUpper = fC;
+        }
+        return Math.exp(lower / 2);
+    }
+
+    private double f(double x, double delta, double phi, double v, double a) {
+        double ex = Math.exp(x);
+        double denominator = phi * phi + v + ex;
+        return ex * (delta * delta - phi * phi - v - ex) / (2 * denominator * denominator) - (x - a) / (tau * tau);
+    }
+
+    /**
+     * A rating on the familiar Glicko scale, where new players start at 1500 with deviation 350.
+     */
+    public record Rating(double rating, double deviation, double volatility) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.chess.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory token bucket per user for sending invitations.
+ *
+ * Each user may send a burst of {@code capacity} invitations, after which one more is allowed
+ * every {@code refill-interval} ms. Buckets are refilled lazily when used, and buckets that
+ * have filled up again are dropped by a periodic sweep, so idle users cost nothing.
+ * A bucket is only touched inside {@code compute} calls, which serialize per user.
+ */
+@Component
+public class InvitationRateLimiter {
+
+    private final int capacity;
+    private final long refillIntervalNanos;
+
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public InvitationRateLimiter(@Value("${chess.invitation.rate-limit.capacity:5}") int capacity,
+                                 @Value("${chess.invitation.rate-limit.refill-interval:10000}") long refillIntervalMillis) {
+        this.capacity = capacity;
+        this.refillIntervalNanos = refillIntervalMillis * 1_000_000;
+    }
+
+    /**
+     * Takes a token from the user's bucket.
+     *
+     * @return false if the bucket is empty and the invitation should be rejected
+     */
+    public boolean tryAcquire(Long userId) {
+        long now = System.nanoTime();
+        boolean[] acquired = new boolean[1];
+        buckets.compute(userId, (id, bucket) -> {
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+            }
+            bucket.refill(now);
+            if (bucket.tokens > 0) {
+                bucket.tokens--;
+                acquired[0] = true;
+            }
+            return bucket;
+        });
+        return acquired[0];
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${chess.invitation.rate-limit.sweep-interval:60000}")
+    public void evictFullBuckets() {
+        long now = System.nanoTime();
+        for (Long userId : buckets.keySet()) {
+            buckets.computeIfPresent(userId, (id, bucket) -> {
+                bucket.refill(now);
+                return bucket.tokens >= capacity ? null : bucket;
+            });
+        }
+    }
+
+    private final class Bucket {
+        private int tokens;
+        private long lastRefill;
+
+        private Bucket(int tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+
+        private void refill(long now) {
+            long earned = (now - lastRefill) / refillIntervalNanos;
+            if (earned > 0) {
+                tokens = (int) Math.min(capacity, tokens + earned);
+                lastRefill += earned * refillIntervalNanos;
+            }
+            if (tokens >= capacity) {
+                lastRefill = now;
+            }
+        }
+    }
+}
@@ -8,16 +8,23 @@ import com.chess.repository.InvitationRepository;
 import com.chess.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service handling game invitations between players.
+ *
+ * Invitations older than {@code chess.invitation.ttl} count as expired even before
+ * {@link InvitationSweeper} marks them, so they can no longer be answered. A sender has at most
+ * one pending invitation per recipient, and {@link InvitationRateLimiter} caps how fast they can send.
  */
 @Service
 @RequiredArgsConstructor
@@ -26,14 +33,31 @@ public class InvitationService {
 
     private final InvitationRepository invitationRepository;
     private final UserRepository userRepository;
+    private final DisplayNameService displayNameService;
     private final GameService gameService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final InvitationRateLimiter rateLimiter;
+
+    @Value("${chess.invitation.ttl:300000}")
+    private long ttlMillis;
 
     @Transactional
     public InvitationDto sendInvitation(Long fromUserId, Long toUserId) {
         if (fromUserId.equals(toUserId)) {
             throw new IllegalArgumentException("Cannot invite yourself");
         }
+        // Checked before any database access so a flood of invites costs no queries
+        if (!rateLimiter.tryAcquire(fromUserId)) {
+            throw new IllegalStateException("Too many invitations, please wait before sending another");
+        }
+
+        // Repeating an invitation that is still pending returns it without notifying anyone again
+        var existing = invitationRepository.findFirstByFromUserIdAndToUserIdAndStatusAndCreatedAtAfter(
+                fromUserId, toUserId, InvitationStatus.PENDING, expiryCutoff());
+        if (existing.isPresent()) {
+            log.debug("Invitation from {} to {} already pending as {}", fromUserId, toUserId, existing.get().getId());
+            return enrichInvitationDto(existing.get());
+        }
 
         var toUser = userRepository.findById(toUserId)
                 .orElseThrow(() -> new IllegalArgumentException("Target user not found"));
@@ -67,6 +91,9 @@ public class InvitationService {
         if (invitation.getStatus() != InvitationStatus.PENDING) {
             throw new IllegalStateException("Invitation already processed");
         }
+        if (!invitation.getCreatedAt().isAfter(expiryCutoff())) {
+            throw new IllegalStateException("Invitation expired");
+        }
 
         invitation.setStatus(InvitationStatus.ACCEPTED);
         invitation.setRespondedAt(LocalDateTime.now());
@@ -105,6 +132,9 @@ public class InvitationService {
         if (invitation.getStatus() != InvitationStatus.PENDING) {
             throw new IllegalStateException("Invitation already processed");
         }
+        if (!invitation.getCreatedAt().isAfter(expiryCutoff())) {
+            throw new IllegalStateException("Invitation expired");
+        }
 
         invitation.setStatus(InvitationStatus.DECLINED);
         invitation.setRespondedAt(LocalDateTime.now());
@@ -125,24 +155,35 @@ public class InvitationService {
 
     @Transactional(readOnly = true)
     public List<InvitationDto> getPendingInvitations(Long userId) {
-        List<Invitation> invitations = invitationRepository.findByToUserIdAndStatus(userId, InvitationStatus.PENDING);
-        return invitations.stream()
-                .map(this::enrichInvitationDto)
-                .collect(Collectors.toList());
+        List<Invitation> invitations = invitationRepository.findByToUserIdAndStatusAndCreatedAtAfter(
+                userId, InvitationStatus.PENDING, expiryCutoff());
+        return enrichInvitationDtos(invitations);
+    }
+
+    private LocalDateTime expiryCutoff() {
+        return LocalDateTime.now().minusNanos(ttlMillis * 1_000_000);
     }
 
     private InvitationDto enrichInvitationDto(Invitation invitation) {
-        InvitationDto dto = InvitationDto.fromEntity(invitation);
-        
-        userRepository.findById(invitation.getFromUserId()).ifPresent(user -> 
-            dto.setFromUserName(user.getDisplayName())
-        );
-        
-        userRepository.findById(invitation.getToUserId()).ifPresent(user -> 
-            dto.setToUserName(user.getDisplayName())
-        );
-        
-        return dto;
+        return enrichInvitationDtos(List.of(invitation)).get(0);
+    }
+
+    /**
+     * Converts invitations to DTOs, resolving every sender and recipient name with a single lookup.
+     */
+    private List<InvitationDto> enrichInvitationDtos(List<Invitation> invitations) {
+        Map<Long, String> names = displayNameService.getDisplayNames(invitations.stream()
+                .flatMap(invitation -> Stream.of(invitation.getFromUserId(), invitation.getToUserId()))
+                .collect(Collectors.toSet()));
+
+        return invitations.stream()
+                .map(invitation -> {
+                    InvitationDto dto = InvitationDto.fromEntity(invitation);
+                    dto.setFromUserName(names.get(invitation.getFromUserId()));
+                    dto.setToUserName(names.get(invitation.getToUserId()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
     }
 }
 
@@ -0,0 +1,138 @@
+package com.chess.service;
+
+import com.chess.dto.InvitationDto;
+import com.chess.model.Invitation;
+import com.chess.model.Invitation.InvitationStatus;
+import com.chess.model.User;
+import com.chess.repository.InvitationRepository;
+import com.chess.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Expires invitations left pending for longer than {@code chess.invitation.ttl}.
+ *
+ * Each sweep reads the oldest pending invitations in batches from the (status, createdAt) index
+ * and expires every batch with a single UPDATE in its own transaction. Invitations accepted or
+ * declined between the read and the UPDATE keep their status; when the UPDATE changes fewer rows
+ * than were read, the batch is narrowed to the rows it did expire. Once a batch has committed,
+ * the sender and recipient of each expired invitation are told on /queue/invitation-expired.
+ */
+@Component
+@Slf4j
+public class InvitationSweeper {
+
+    public static final String EXPIRED_QUEUE = "/queue/invitation-expired";
+
+    private final InvitationRepository invitationRepository;
+    private final UserRepository userRepository;
+    private final DisplayNameService displayNameService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMillis;
+    private final int batchSize;
+
+    public InvitationSweeper(InvitationRepository invitationRepository,
+                             UserRepository userRepository,
+                             DisplayNameService displayNameService,
+                             SimpMessagingTemplate messagingTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${chess.invitation.ttl:300000}") long ttlMillis,
+                             @Value("${chess.invitation.sweep-batch-size:500}") int batchSize) {
+        this.invitationRepository = invitationRepository;
+        this.userRepository = userRepository;
+        this.displayNameService = displayNameService;
+        this.messagingTemplate = messagingTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlMillis = ttlMillis;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Expires every invitation past its TTL.
+     *
+     * @return the number of invitations expired
+     */
+    @Scheduled(fixedDelayString = "${chess.invitation.sweep-interval:30000}")
+    public int expireInvitations() {
+        // Stored as written, so the rows this sweep expired can be found by their timestamp;
+        // Hibernate creates timestamp columns with microsecond precision
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime cutoff = now.minusNanos(ttlMillis * 1_000_000);
+        int total = 0;
+        Batch batch;
+        do {
+            batch = transactionTemplate.execute(status -> expireBatch(cutoff, now));
+            notifyExpired(batch.expired(), now);
+            total += batch.expired().size();
+        } while (batch.read() == batchSize);
+
+        if (total > 0) {
+            log.info("Expired {} invitations", total);
+        }
+        return total;
+    }
+
+    private Batch expireBatch(LocalDateTime cutoff, LocalDateTime now) {
+        List<Invitation> batch = invitationRepository.findByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(
+                InvitationStatus.PENDING, cutoff, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return new Batch(0, batch);
+        }
+        List<Long> ids = batch.stream().map(Invitation::getId).toList();
+        int updated = invitationRepository.updateStatus(ids, InvitationStatus.PENDING, InvitationStatus.EXPIRED, now);
+        if (updated == batch.size()) {
+            return new Batch(batch.size(), batch);
+        }
+        // Some were answered after the read; only the rows this UPDATE changed carry its timestamp
+        Set<Long> expiredIds = Set.copyOf(
+                invitationRepository.findIdsByStatusAndRespondedAt(ids, InvitationStatus.EXPIRED, now));
+        List<Invitation> expired = batch.stream()
+                .filter(invitation -> expiredIds.contains(invitation.getId()))
+                .toList();
+        return new Batch(batch.size(), expired);
+    }
+
+    private void notifyExpired(List<Invitation> invitations, LocalDateTime expiredAt) {
+        if (invitations.isEmpty()) {
+            return;
+        }
+        Set<Long> userIds = invitations.stream()
+                .flatMap(invitation -> Stream.of(invitation.getFromUserId(), invitation.getToUserId()))
+                .collect(Collectors.toSet());
+        Map<Long, String> emails = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, User::getEmail));
+        Map<Long, String> names = displayNameService.getDisplayNames(userIds);
+
+        for (Invitation invitation : invitations) {
+            InvitationDto dto = InvitationDto.fromEntity(invitation);
+            dto.setStatus(InvitationStatus.EXPIRED.name());
+            dto.setRespondedAt(expiredAt);
+            dto.setFromUserName(names.get(invitation.getFromUserId()));
+            dto.setToUserName(names.get(invitation.getToUserId()));
+            Stream.of(invitation.getFromUserId(), invitation.getToUserId())
+                    .map(emails::get)
+                    .filter(Objects::nonNull)
+                    .forEach(email -> messagingTemplate.convertAndSendToUser(email, EXPIRED_QUEUE, dto));
+        }
+    }
+
+    // How many pending invitations a batch read, and which of them it actually expired
+    private record Batch(int read, List<Invitation> expired) {
+    }
+}
@@ -0,0 +1,347 @@
+package com.chess.service;
+
+import com.chess.dto.ErrorResponse;
+import com.chess.dto.GameDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pairs players looking for a game with opponents of similar rating.
+ *
+ * Players wait in one pool per time control offered in {@code time-controls}, plus the clock's
+ * default; other time controls are refused, as are players who already have a game in progress.
+ * Joining is lock-free: the ticket goes onto the
+ * pool's arrival queue and into a skip list ordered by rating, so joins never contend with each
+ * other or with pairing. A scheduled pass serves the tickets oldest first and matches each with
+ * the closest rated player within its band. The band starts at {@code initial-band} rating points
+ * and widens by {@code band-step} every {@code band-interval} ms up to {@code max-band}, so the
+ * longer a player waits the wider the ratings they accept. Ratings come from the
+ * {@link RatingService} cache, so joining normally costs no query. The games of a pass are
+ * created {@code game-batch-size} at a time, each batch in one transaction. Players whose game
+ * could not be created go back into the queue, up to {@link #MAX_START_ATTEMPTS} times, after which
+ * they are told on {@link #ERRORS_QUEUE} and dropped.
+ *
+ * Leaving and pairing share a lock, so a player who has left is never matched. The queue is held
+ * in memory on the node the player is connected to; players who go offline are dropped from it.
+ */
+@Service
+@Slf4j
+public class MatchmakingService {
+
+    public static final String ERRORS_QUEUE = "/queue/errors";
+    static final int MAX_START_ATTEMPTS = 3;
+
+    private static final Comparator<Ticket> BY_RATING = Comparator
+            .comparingInt(Ticket::rating)
+            .thenComparingLong(Ticket::sequence);
+
+    private final RatingService ratingService;
+    private final GameService gameService;
+    private final PresenceRegistry presenceRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final int initialBand;
+    private final int bandStep;
+    private final long bandIntervalMillis;
+    private final int maxBand;
+    private final int gameBatchSize;
+
+    private final Map<Long, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Map<TimeControl, Pool> pools;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Object pairingLock = new Object();
+
+    public MatchmakingService(RatingService ratingService,
+                              GameService gameService,
+                              GameClockService gameClockService,
+                              PresenceRegistry presenceRegistry,
+                              SimpMessagingTemplate messagingTemplate,
+                              @Value("${chess.matchmaking.time-controls:}") List<String> timeControls,
+                              @Value("${chess.matchmaking.initial-band:100}") int initialBand,
+                              @Value("${chess.matchmaking.band-step:50}") int bandStep,
+                              @Value("${chess.matchmaking.band-interval:5000}") long bandIntervalMillis,
+                              @Value("${chess.matchmaking.max-band:500}") int maxBand,
+                              @Value("${chess.matchmaking.game-batch-size:100}") int gameBatchSize) {
+        this.ratingService = ratingService;
+        this.gameService = gameService;
+        this.presenceRegistry = presenceRegistry;
+        this.messagingTemplate = messagingTemplate;
+        this.initialBand = initialBand;
+        this.bandStep = bandStep;
+        this.bandIntervalMillis = bandIntervalMillis;
+        this.maxBand = maxBand;
+        this.gameBatchSize = gameBatchSize;
+
+        // Fixed up front, so the set of pools cannot grow with what clients ask for
+        Map<TimeControl, Pool> offered = new LinkedHashMap<>();
+        offered.put(gameClockService.defaultTimeControl(), new Pool(gameClockService.defaultTimeControl()));
+        for (String value : timeControls) {
+            TimeControl timeControl = TimeControl.parse(value);
+            offered.putIfAbsent(timeControl, new Pool(timeControl));
+        }
+        this.pools = Map.copyOf(offered);
+    }
+
+    /**
+     * Whether players can queue for the given time control.
+     */
+    public boolean offers(TimeControl timeControl) {
+        return pools.containsKey(timeControl);
+    }
+
+    /**
+     * Puts a player in the queue for the given time control. {@code email} is the name the
+     * player's session is registered under, used to tell them their game has started.
+     *
+     * @return false if the player was already queued
+     * @throws IllegalArgumentException if the time control is not offered
+     * @throws IllegalStateException if the player already has a game in progress
+     */
+    public boolean join(Long userId, String email, TimeControl timeControl) {
+        Pool pool = pools.get(timeControl);
+        if (pool == null) {
+            throw new IllegalArgumentException("Time control not offered for matchmaking: " + timeControl);
+        }
+        // Checked first so repeated joins skip the queries
+        if (tickets.containsKey(userId)) {
+            return false;
+        }
+        if (gameService.hasActiveGame(userId)) {
+            throw new IllegalStateException("User " + userId + " already has a game in progress");
+        }
+        int rating = ratingService.getRating(userId);
+
+        Ticket ticket = new Ticket(userId, email, rating, pool,
+                System.currentTimeMillis(), sequence.incrementAndGet(), 0);
+        if (!enqueue(ticket)) {
+            return false;
+        }
+        log.debug("User {} ({}) queued for {}", userId, ticket.rating(), timeControl);
+        return true;
+    }
+
+    /**
+     * Takes a player out of the queue.
+     *
+     * @return false if the player was not queued, e.g. because they were just matched
+     */
+    public boolean leave(Long userId) {
+        synchronized (pairingLock) {
+            Ticket ticket = tickets.remove(userId);
+            if (ticket == null) {
+                return false;
+            }
+            // Its arrival entry is skipped by the next pass
+            ticket.pool().byRating.remove(ticket);
+            return true;
+        }
+    }
+
+    public boolean isQueued(Long userId) {
+        return tickets.containsKey(userId);
+    }
+
+    public int queuedPlayers() {
+        return tickets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${chess.matchmaking.interval:1000}")
+    public void pairPlayers() {
+        pairPlayers(System.currentTimeMillis());
+    }
+
+    /**
+     * Matches every waiting player who has an opponent within their band and starts their games.
+     *
+     * @return the number of games started
+     */
+    public int pairPlayers(long nowMillis) {
+        List<Ticket[]> pairs = new ArrayList<>();
+        synchronized (pairingLock) {
+            for (Pool pool : pools.values()) {
+                pool.match(nowMillis, pairs);
+            }
+        }
+
+        int started = 0;
+        for (int from = 0; from < pairs.size(); from += gameBatchSize) {
+            started += startGames(pairs.subList(from, Math.min(pairs.size(), from + gameBatchSize)));
+        }
+        if (started > 0) {
+            log.info("Matchmaking started {} games, {} players still waiting", started, tickets.size());
+        }
+        return started;
+    }
+
+    /**
+     * Returns the rating difference a ticket accepts after waiting until {@code nowMillis}.
+     */
+    private int band(Ticket ticket, long nowMillis) {
+        long steps = Math.max(0, nowMillis - ticket.joinedAt()) / bandIntervalMillis;
+        return (int) Math.min(maxBand, initialBand + steps * bandStep);
+    }
+
+    private int startGames(List<Ticket[]> pairs) {
+        List<GameDto> games;
+        try {
+            games = gameService.createGames(pairs.stream()
+                    .map(pair -> new Pairing(pair[0].userId(), pair[1].userId(), pair[0].pool().timeControl))
+                    .toList());
+        } catch (RuntimeException e) {
+            if (pairs.size() == 1) {
+                Ticket[] pair = pairs.get(0);
+                log.error("Could not start a game for {} and {}: {}", pair[0].userId(), pair[1].userId(), e.getMessage());
+                requeue(pair[0]);
+                requeue(pair[1]);
+                return 0;
+            }
+            // One at a time, so a single bad pair does not cost the others their game
+            log.warn("Could not start {} games together, starting them one by one: {}", pairs.size(), e.getMessage());
+            int started = 0;
+            for (Ticket[] pair : pairs) {
+                started += startGames(List.<Ticket[]>of(pair));
+            }
+            return started;
+        }
+
+        for (int i = 0; i < games.size(); i++) {
+            Ticket first = pairs.get(i)[0];
+            Ticket second = pairs.get(i)[1];
+            GameDto game = games.get(i);
+            messagingTemplate.convertAndSendToUser(first.email(), "/queue/game-start", game);
+            messagingTemplate.convertAndSendToUser(second.email(), "/queue/game-start", game);
+            log.info("Matched {} ({}) with {} ({}) in game {}", first.userId(), first.rating(),
+                    second.userId(), second.rating(), game.getId());
+        }
+        return games.size();
+    }
+
+    /**
+     * Puts a player whose game could not be started back in the queue, keeping their waiting time,
+     * or gives up on them once they have failed {@link #MAX_START_ATTEMPTS} times.
+     */
+    private void requeue(Ticket ticket) {
+        int attempts = ticket.attempts() + 1;
+        if (attempts >= MAX_START_ATTEMPTS) {
+            log.warn("Giving up on starting a game for user {} after {} attempts", ticket.userId(), attempts);
+            messagingTemplate.convertAndSendToUser(ticket.email(), ERRORS_QUEUE,
+                    ErrorResponse.of("Matchmaking Failed", "Your game could not be started, please try again", 500));
+            return;
+        }
+        // A fresh sequence, or dropping the old ticket's stale arrival entry would also take the new
+        // one out of byRating. A player who joined again meanwhile keeps their new ticket.
+        enqueue(new Ticket(ticket.userId(), ticket.email(), ticket.rating(), ticket.pool(),
+                ticket.joinedAt(), sequence.incrementAndGet(), attempts));
+    }
+
+    private boolean enqueue(Ticket ticket) {
+        if (tickets.putIfAbsent(ticket.userId(), ticket) != null) {
+            return false;
+        }
+        ticket.pool().arrivals.add(ticket);
+        ticket.pool().byRating.add(ticket);
+        return true;
+    }
+
+    private boolean isWaiting(Ticket ticket) {
+        return tickets.get(ticket.userId()) == ticket;
+    }
+
+    private void remove(Ticket ticket) {
+        tickets.remove(ticket.userId(), ticket);
+        ticket.pool().byRating.remove(ticket);
+    }
+
+    /**
+     * The players waiting for one time control. Only touched by {@link #match} under the pairing
+     * lock, apart from the lock-free adds in {@link #join}.
+     */
+    private final class Pool {
+        private final TimeControl timeControl;
+        private final Queue<Ticket> arrivals = new ConcurrentLinkedQueue<>();
+        private final ConcurrentSkipListSet<Ticket> byRating = new ConcurrentSkipListSet<>(BY_RATING);
+
+        private Pool(TimeControl timeControl) {
+            this.timeControl = timeControl;
+        }
+
+        private void match(long nowMillis, List<Ticket[]> pairs) {
+            Iterator<Ticket> it = arrivals.iterator();
+            while (it.hasNext()) {
+                Ticket ticket = it.next();
+                if (!isWaiting(ticket)) {
+                    // Left or matched since it joined
+                    it.remove();
+                    byRating.remove(ticket);
+                    continue;
+                }
+                if (!presenceRegistry.isOnline(ticket.userId())) {
+                    it.remove();
+                    remove(ticket);
+                    log.debug("User {} went offline, removed from the queue", ticket.userId());
+                    continue;
+                }
+                Ticket opponent = closestOpponent(ticket, band(ticket, nowMillis));
+                if (opponent != null) {
+                    it.remove();
+                    remove(ticket);
+                    remove(opponent);
+                    pairs.add(new Ticket[]{ticket, opponent});
+                }
+            }
+        }
+
+        /**
+         * Returns the waiting player nearest in rating to {@code ticket} and at most {@code band}
+         * away, preferring whoever joined first on a tie.
+         */
+        private Ticket closestOpponent(Ticket ticket, int band) {
+            Ticket above = byRating.higher(ticket);
+            while (above != null && above.rating() - ticket.rating() <= band && !isAvailable(above)) {
+                above = byRating.higher(above);
+            }
+            if (above != null && above.rating() - ticket.rating() > band) {
+                above = null;
+            }
+            Ticket below = byRating.lower(ticket);
+            while (below != null && ticket.rating() - below.rating() <= band && !isAvailable(below)) {
+                below = byRating.lower(below);
+            }
+            if (below != null && ticket.rating() - below.rating() > band) {
+                below = null;
+            }
+
+            if (above == null || below == null) {
+                return above != null ? above : below;
+            }
+            int aboveGap = above.rating() - ticket.rating();
+            int belowGap = ticket.rating() - below.rating();
+            if (aboveGap != belowGap) {
+                return aboveGap < belowGap ? above : below;
+            }
+            return above.sequence() < below.sequence() ? above : below;
+        }
+
+        private boolean isAvailable(Ticket candidate) {
+            return isWaiting(candidate) && presenceRegistry.isOnline(candidate.userId());
+        }
+    }
+
+    private record Ticket(Long userId, String email, int rating, Pool pool, long joinedAt, long sequence,
+                          int attempts) {
+    }
+}
@@ -0,0 +1,421 @@
+package com.chess.service;
+
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.repository.GameRepository;
+import com.chess.repository.MoveRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind journal for moves, enabled with {@code chess.move-journal.enabled}.
+ *
+ * A move is appended to a local append-only file once its transaction commits and acknowledged
+ * once it is on disk. Appends that arrive together share one fsync (group commit). Journaled moves
+ * are then written to the moves table, and the games row advanced, in batched transactions on a
+ * short schedule. Until then they are served from {@link #pendingMoves}.
+ * <p>
+ * On startup the journal is replayed: moves missing from the database are written before the
+ * application accepts traffic, so a crash loses nothing that was acknowledged. Once every record
+ * in the file is in the database the file is truncated.
+ * <p>
+ * Record layout: payload length (int), payload, CRC32 of the payload (int). A torn record at the
+ * end of the file, left by a crash during a write, is discarded.
+ */
+@Component
+@DependsOn("sequenceMigration") // replay inserts moves
+@Slf4j
+public class MoveJournal {
+
+    private static final int MAX_GROUP_SIZE = 1024;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private final MoveRepository moveRepository;
+    private final GameRepository gameRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Path path;
+    private final int flushBatchSize;
+    private final long compactThresholdBytes;
+
+    private final BlockingQueue<PendingAppend> appends = new LinkedBlockingQueue<>();
+    // Durable moves not yet in the database, in journal order
+    private final ConcurrentLinkedQueue<Move> unflushed = new ConcurrentLinkedQueue<>();
+    private final Map<Long, List<Move>> pendingByGame = new ConcurrentHashMap<>();
+    private final AtomicLong journaledCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final Object flushLock = new Object();
+
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean running;
+
+    public MoveJournal(MoveRepository moveRepository,
+                       GameRepository gameRepository,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${chess.move-journal.enabled:false}") boolean enabled,
+                       @Value("${chess.move-journal.path:./data/move-journal.log}") String path,
+                       @Value("${chess.move-journal.flush-batch-size:500}") int flushBatchSize,
+                       @Value("${chess.move-journal.compact-threshold:1048576}") long compactThresholdBytes) {
+        this.moveRepository = moveRepository;
+        this.gameRepository = gameRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.flushBatchSize = flushBatchSize;
+        this.compactThresholdBytes = compactThresholdBytes;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replay();
+
+        running = true;
+        writer = new Thread(this::writeLoop, "move-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        flush();
+        channel.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a move to the journal and returns once it is durable.
+     *
+     * @throws IllegalStateException if the journal could not be written
+     */
+    public void append(Move move) {
+        if (!enabled) {
+            throw new IllegalStateException("Move journal is disabled");
+        }
+        PendingAppend pending = new PendingAppend(move, new CompletableFuture<>());
+        appends.add(pending);
+        try {
+            pending.written().get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not journal move", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while journaling move", e);
+        }
+    }
+
+    /**
+     * Returns the journaled moves of a game that may not be in the database yet, in move order.
+     * A move can briefly be both here and in the database right after a flush.
+     */
+    public List<Move> pendingMoves(Long gameId) {
+        return pendingByGame.getOrDefault(gameId, List.of());
+    }
+
+    /**
+     * Writes journaled moves to the database in batches of {@code chess.move-journal.flush-batch-size},
+     * one transaction per batch. A failed batch stays queued and is retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${chess.move-journal.flush-interval:200}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            while (true) {
+                List<Move> batch = new ArrayList<>();
+                Iterator<Move> it = unflushed.iterator();
+                while (it.hasNext() && batch.size() < flushBatchSize) {
+                    batch.add(it.next());
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+
+                transactionTemplate.executeWithoutResult(status -> writeBatch(batch));
+
+                for (Move move : batch) {
+                    unflushed.poll();
+                    removePending(move);
+                }
+                flushedCount.addAndGet(batch.size());
+                log.debug("Flushed {} journaled moves", batch.size());
+            }
+        }
+    }
+
+    private void writeBatch(List<Move> batch) {
+        // Insert copies so a rolled-back batch leaves no generated ids on the pending moves
+        moveRepository.insertAll(batch.stream().map(MoveJournal::copyOf).toList());
+
+        // Runs without the game lock, so the games row is only advanced, never loaded and saved
+        Map<Long, Integer> lastPly = batch.stream()
+                .collect(Collectors.toMap(Move::getGameId, Move::getMoveNumber, Math::max));
+        lastPly.forEach((gameId, ply) -> gameRepository.advanceMoveCount(gameId, ply,
+                ply % 2 == 0 ? Game.PlayerColor.WHITE : Game.PlayerColor.BLACK));
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> group = new ArrayList<>();
+        while (running || !appends.isEmpty()) {
+            try {
+                PendingAppend first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            appends.drainTo(group, MAX_GROUP_SIZE - 1);
+            writeGroup(group);
+            group.clear();
+        }
+        appends.forEach(pending -> pending.written().completeExceptionally(
+                new IllegalStateException("Move journal is shutting down")));
+    }
+
+    /**
+     * Writes a group of records with a single fsync, then publishes them as pending.
+     */
+    private void writeGroup(List<PendingAppend> group) {
+        long start = -1;
+        try {
+            compactIfFlushed();
+            start = channel.position();
+            ByteBuffer buffer = ByteBuffer.wrap(encode(group));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            log.error("Journal write of {} moves failed", group.size(), e);
+            discardFrom(start);
+            group.forEach(pending -> pending.written().completeExceptionally(e));
+            return;
+        }
+        for (PendingAppend pending : group) {
+            track(pending.move());
+        }
+        group.forEach(pending -> pending.written().complete(null));
+    }
+
+    private void compactIfFlushed() throws IOException {
+        if (flushedCount.get() == journaledCount.get() && channel.size() > compactThresholdBytes) {
+            channel.truncate(0);
+            channel.position(0);
+            log.debug("Move journal compacted");
+        }
+    }
+
+    private void discardFrom(long position) {
+        if (position < 0) {
+            return;
+        }
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            log.error("Could not discard partial journal write", e);
+        }
+    }
+
+    private void track(Move move) {
+        journaledCount.incrementAndGet();
+        pendingByGame.merge(move.getGameId(), List.of(move),
+                (current, added) -> Stream.concat(current.stream(), added.stream()).toList());
+        unflushed.add(move);
+    }
+
+    private void removePending(Move move) {
+        pendingByGame.computeIfPresent(move.getGameId(), (gameId, moves) -> {
+            List<Move> remaining = moves.stream().filter(pending -> pending != move).toList();
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    private void replay() throws IOException {
+        List<Move> journaled = new ArrayList<>();
+        long validLength = 0;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                int crc;
+                try {
+                    in.readFully(payload);
+                    crc = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (crc != checksum(payload)) {
+                    break;
+                }
+                journaled.add(decode(payload));
+                validLength += Integer.BYTES + length + Integer.BYTES;
+            }
+        }
+        if (channel.size() > validLength) {
+            log.warn("Discarding {} bytes of torn records at the end of the move journal", channel.size() - validLength);
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+
+        int missing = 0;
+        for (Move move : journaled) {
+            if (moveRepository.existsByGameIdAndMoveNumber(move.getGameId(), move.getMoveNumber())) {
+                journaledCount.incrementAndGet();
+                flushedCount.incrementAndGet();
+            } else {
+                track(move);
+                missing++;
+            }
+        }
+        flush();
+        log.info("Replayed move journal: {} records, {} written to the database", journaled.size(), missing);
+    }
+
+    private static byte[] encode(List<PendingAppend> group) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(group.size() * 96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (PendingAppend pending : group) {
+                byte[] payload = encodeMove(pending.move());
+                out.writeInt(payload.length);
+                out.write(payload);
+                out.writeInt(checksum(payload));
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encodeMove(Move move) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(move.getGameId());
+        out.writeLong(move.getPlayerId());
+        out.writeInt(move.getMoveNumber());
+        out.writeUTF(move.getFromSquare());
+        out.writeUTF(move.getToSquare());
+        out.writeUTF(move.getPiece());
+        out.writeUTF(nullToEmpty(move.getCapturedPiece()));
+        out.writeUTF(nullToEmpty(move.getPromotion()));
+        out.writeUTF(move.getSan());
+        out.writeUTF(move.getCreatedAt().toString());
+        return bytes.toByteArray();
+    }
+
+    private static Move decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        return Move.builder()
+                .gameId(in.readLong())
+                .playerId(in.readLong())
+                .moveNumber(in.readInt())
+                .fromSquare(in.readUTF())
+                .toSquare(in.readUTF())
+                .piece(in.readUTF())
+                .capturedPiece(emptyToNull(in.readUTF()))
+                .promotion(emptyToNull(in.readUTF()))
+                .san(in.readUTF())
+                .createdAt(LocalDateTime.parse(in.readUTF()))
+                .build();
+    }
+
+    private static Move copyOf(Move move) {
+        return Move.builder()
+                .gameId(move.getGameId())
+                .playerId(move.getPlayerId())
+                .fromSquare(move.getFromSquare())
+                .toSquare(move.getToSquare())
+                .piece(move.getPiece())
+                .capturedPiece(move.getCapturedPiece())
+                .promotion(move.getPromotion())
+                .san(move.getSan())
+                .moveNumber(move.getMoveNumber())
+                .createdAt(move.getCreatedAt())
+                .build();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private record PendingAppend(Move move, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.chess.service;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Outcome of validating and applying a single move with {@link ChessValidationService#validateAndApply}.
+ */
+@Getter
+@Builder
+public class MoveResult {
+    private final String piece;          // Moved piece type, e.g. "P", "N"
+    private final String capturedPiece;  // Captured piece as a FEN letter, or null
+    private final String promotion;      // Promotion piece if pawn reached the last rank
+    private final String san;            // Standard Algebraic Notation, e.g. "Nbd2", "exd5", "Qh4#"
+    private final int encodedMove;       // 16-bit engine encoding, see com.chess.engine.Moves
+    private final long positionHash;     // Zobrist hash of the resulting position
+    private final boolean check;
+    private final boolean checkmate;
+    private final boolean stalemate;
+}
@@ -0,0 +1,7 @@
+package com.chess.service;
+
+/**
+ * Two players to be put in a game with the given time control; colors are assigned at random.
+ */
+public record Pairing(Long firstPlayerId, Long secondPlayerId, TimeControl timeControl) {
+}
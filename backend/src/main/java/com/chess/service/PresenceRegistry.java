@@ -0,0 +1,85 @@
+package com.chess.service;
+
+import com.chess.dto.UserDto;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory record of which users have an open WebSocket session.
+ *
+ * A user can be connected from several tabs or devices; they stay online until their
+ * last session closes. Nothing here touches the database.
+ */
+@Component
+public class PresenceRegistry {
+
+    private final Map<Long, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Long> userBySession = new ConcurrentHashMap<>();
+    private final Map<Long, UserDto> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a session for a user.
+     *
+     * @return true if this is the user's first open session, i.e. they just came online
+     */
+    public boolean connect(UserDto user, String sessionId) {
+        if (userBySession.putIfAbsent(sessionId, user.getId()) != null) {
+            return false;
+        }
+        boolean[] cameOnline = new boolean[1];
+        sessionsByUser.compute(user.getId(), (id, sessions) -> {
+            if (sessions == null) {
+                sessions = new HashSet<>();
+                cameOnline[0] = true;
+                profiles.put(id, user);
+            }
+            sessions.add(sessionId);
+            return sessions;
+        });
+        return cameOnline[0];
+    }
+
+    /**
+     * Removes a session. Unknown or already removed sessions are ignored, since a
+     * disconnect can be reported more than once.
+     *
+     * @return the user id if this was the user's last session, otherwise null
+     */
+    public Long disconnect(String sessionId) {
+        Long userId = userBySession.remove(sessionId);
+        if (userId == null) {
+            return null;
+        }
+        boolean[] wentOffline = new boolean[1];
+        sessionsByUser.computeIfPresent(userId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            if (sessions.isEmpty()) {
+                wentOffline[0] = true;
+                profiles.remove(id);
+                return null;
+            }
+            return sessions;
+        });
+        return wentOffline[0] ? userId : null;
+    }
+
+    public boolean isOnline(Long userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    /**
+     * Returns the profile captured when the user connected, or null if they are offline.
+     */
+    public UserDto getProfile(Long userId) {
+        return profiles.get(userId);
+    }
+
+    public List<UserDto> getOnlineUsers() {
+        return List.copyOf(profiles.values());
+    }
+}
@@ -1,60 +1,392 @@
 package com.chess.service;
 
+import com.chess.config.BrokerBus;
+import com.chess.dto.PresenceEvent;
+import com.chess.dto.PresenceSnapshot;
 import com.chess.dto.UserDto;
-import com.chess.model.User;
 import com.chess.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service managing user online presence.
+ *
+ * Presence follows WebSocket sessions and lives in {@link PresenceRegistry}, not in the database.
+ * Changes are coalesced and published on a short schedule as {@link PresenceEvent} deltas on
+ * /topic/presence, so a user who reconnects within one window produces no event at all.
+ * Clients start from a {@link PresenceSnapshot} taken when they subscribe.
+ * {@code lastSeen} is written back to the users table in periodic batches.
+ *
+ * With several nodes, each node publishes only the changes of its own sessions, tagged with its
+ * presence id and numbered in its own sequence; /topic/presence reaches every client, so clients
+ * track one sequence per node. The same events go to the other nodes over the {@link BrokerBus},
+ * which keep a copy of every node's users so any node can hand out a cluster-wide snapshot.
+ * A node that joins asks the others for their full state, and nodes that leave the cluster are
+ * announced with a {@code NODE_DOWN} event. The presence id includes the start time, so a restarted
+ * node starts a new sequence instead of reusing the old one.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PresenceService {
 
+    public static final String PRESENCE_TOPIC = "/topic/presence";
+
+    static final String EVENT_DESTINATION = "/cluster/presence/event";
+    static final String STATE_DESTINATION = "/cluster/presence/state";
+    static final String SYNC_DESTINATION = "/cluster/presence/sync";
+
+    private final PresenceRegistry presenceRegistry;
+    private final DisplayNameService displayNameService;
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterMembership membership;
+    private final ObjectProvider<BrokerBus> brokerBus;
+    private final ObjectMapper objectMapper;
+    private final String presenceId;
 
-    @Transactional
-    public void markUserOnline(Long userId) {
-        userRepository.findById(userId).ifPresent(user -> {
-            user.setOnline(true);
-            userRepository.save(user);
-            broadcastPresenceUpdate();
-            log.debug("User {} marked as online", userId);
-        });
+    // Users whose presence changed since the last broadcast
+    private final Set<Long> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, LocalDateTime> pendingLastSeen = new ConcurrentHashMap<>();
+
+    // What subscribers have been told so far, by this node and by the others, guarded by publishLock
+    private final Object publishLock = new Object();
+    private final Map<Long, UserDto> published = new HashMap<>();
+    private long sequence;
+    private final Map<String, RemoteNode> remoteNodes = new HashMap<>();
+
+    public PresenceService(PresenceRegistry presenceRegistry,
+                           DisplayNameService displayNameService,
+                           UserRepository userRepository,
+                           SimpMessagingTemplate messagingTemplate,
+                           ClusterMembership membership,
+                           ObjectProvider<BrokerBus> brokerBus,
+                           ObjectMapper objectMapper) {
+        this.presenceRegistry = presenceRegistry;
+        this.displayNameService = displayNameService;
+        this.userRepository = userRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.membership = membership;
+        this.brokerBus = brokerBus;
+        this.objectMapper = objectMapper;
+        this.presenceId = membership.getNodeId() + "@" + System.currentTimeMillis();
     }
 
-    @Transactional
-    public void markUserOffline(Long userId) {
-        userRepository.findById(userId).ifPresent(user -> {
-            user.setOnline(false);
-            userRepository.save(user);
-            broadcastPresenceUpdate();
-            log.debug("User {} marked as offline", userId);
+    @PostConstruct
+    void init() {
+        membership.addListener(this::onMembershipChange);
+        brokerBus.ifAvailable(bus -> {
+            bus.subscribe(this::receive);
+            // Nodes that were already running send their users
+            sendToCluster(SYNC_DESTINATION, new byte[0]);
         });
     }
 
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        // The CONNECTED frame carries the original CONNECT message, which holds the handshake attributes
+        Message<?> connect = (Message<?>) accessor.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        Map<String, Object> attributes = connect != null
+                ? SimpMessageHeaderAccessor.getSessionAttributes(connect.getHeaders())
+                : null;
+        if (attributes == null || !(attributes.get("userId") instanceof Long userId)) {
+            return;
+        }
+        userConnected(userId, (String) attributes.get("username"), accessor.getSessionId());
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        sessionClosed(event.getSessionId());
+    }
+
+    public void userConnected(Long userId, String email, String sessionId) {
+        UserDto user = UserDto.builder()
+                .id(userId)
+                .email(email)
+                .displayName(displayNameService.getDisplayName(userId))
+                .online(true)
+                .build();
+        touch(userId);
+        if (presenceRegistry.connect(user, sessionId)) {
+            dirtyUsers.add(userId);
+            log.debug("User {} came online (session {})", userId, sessionId);
+        }
+    }
+
+    public void sessionClosed(String sessionId) {
+        Long userId = presenceRegistry.disconnect(sessionId);
+        if (userId != null) {
+            touch(userId);
+            dirtyUsers.add(userId);
+            log.debug("User {} went offline (session {})", userId, sessionId);
+        }
+    }
+
+    /**
+     * Records a login. The user shows as online once their WebSocket session connects;
+     * until then only their {@code lastSeen} is refreshed.
+     */
+    public void markUserOnline(Long userId) {
+        touch(userId);
+    }
+
+    public boolean isOnline(Long userId) {
+        return presenceRegistry.isOnline(userId);
+    }
+
+    /**
+     * Returns the online users on every node, the same list as {@link #getSnapshot}.
+     */
     public List<UserDto> getOnlineUsers() {
-        return userRepository.findByOnlineTrue().stream()
-                .map(UserDto::fromEntity)
-                .collect(Collectors.toList());
+        return getSnapshot().getUsers();
     }
 
-    public void broadcastPresenceUpdate() {
-        List<UserDto> onlineUsers = getOnlineUsers();
-        messagingTemplate.convertAndSend("/topic/presence", onlineUsers);
-        log.debug("Broadcasted presence update: {} users online", onlineUsers.size());
+    public String getPresenceId() {
+        return presenceId;
+    }
+
+    /**
+     * Returns the online users on every node as last broadcast, together with the sequence of each
+     * node's last broadcast. Events with a higher sequence apply on top of it.
+     */
+    public PresenceSnapshot getSnapshot() {
+        synchronized (publishLock) {
+            Map<Long, UserDto> users = new LinkedHashMap<>(published);
+            Map<String, PresenceSnapshot.Node> nodes = new HashMap<>();
+            nodes.put(presenceId, new PresenceSnapshot.Node(sequence, List.copyOf(published.keySet())));
+            remoteNodes.forEach((id, node) -> {
+                node.users.forEach(users::putIfAbsent);
+                nodes.put(id, new PresenceSnapshot.Node(node.sequence, List.copyOf(node.users.keySet())));
+            });
+            return PresenceSnapshot.builder()
+                    .users(List.copyOf(users.values()))
+                    .nodes(nodes)
+                    .build();
+        }
+    }
+
+    /**
+     * Publishes one event per user whose online state differs from what subscribers last saw.
+     */
+    @Scheduled(fixedDelayString = "${chess.presence.broadcast-interval:250}")
+    public void flushPresenceChanges() {
+        if (dirtyUsers.isEmpty()) {
+            return;
+        }
+        List<PresenceEvent> events = new ArrayList<>();
+        synchronized (publishLock) {
+            List<Long> changed = new ArrayList<>(dirtyUsers);
+            dirtyUsers.removeAll(changed);
+
+            for (Long userId : changed) {
+                UserDto current = presenceRegistry.getProfile(userId);
+                if (current != null && !published.containsKey(userId)) {
+                    published.put(userId, current);
+                    events.add(publish(PresenceEvent.Type.JOINED, current));
+                } else if (current == null && published.containsKey(userId)) {
+                    events.add(publish(PresenceEvent.Type.LEFT, published.remove(userId)));
+                }
+            }
+        }
+        // Outside the lock: an in-process bus delivers straight into the other nodes' locks
+        for (PresenceEvent event : events) {
+            sendToCluster(EVENT_DESTINATION, event);
+        }
     }
-}
 
+    /**
+     * Writes pending {@code lastSeen} values with one bulk update per distinct second.
+     */
+    @Scheduled(fixedDelayString = "${chess.presence.last-seen-flush-interval:30000}")
+    @PreDestroy
+    public void flushLastSeen() {
+        if (pendingLastSeen.isEmpty()) {
+            return;
+        }
+        Map<LocalDateTime, Set<Long>> byTime = new HashMap<>();
+        for (Long userId : new ArrayList<>(pendingLastSeen.keySet())) {
+            LocalDateTime seen = pendingLastSeen.remove(userId);
+            if (seen != null) {
+                byTime.computeIfAbsent(seen, t -> new HashSet<>()).add(userId);
+            }
+        }
+        byTime.forEach((seen, userIds) -> userRepository.updateLastSeen(userIds, seen));
+        log.debug("Flushed lastSeen for {} users in {} updates",
+                byTime.values().stream().mapToInt(Set::size).sum(), byTime.size());
+    }
+
+    private void touch(Long userId) {
+        pendingLastSeen.put(userId, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+    }
 
+    private PresenceEvent publish(PresenceEvent.Type type, UserDto user) {
+        PresenceEvent event = PresenceEvent.builder()
+                .type(type)
+                .user(user)
+                .node(presenceId)
+                .sequence(++sequence)
+                .build();
+        messagingTemplate.convertAndSend(PRESENCE_TOPIC, event);
+        log.debug("Broadcasted presence {} for user {} (seq {})", type, user.getId(), event.getSequence());
+        return event;
+    }
 
+    /**
+     * Forgets the users of nodes that left the cluster and sends this node's users to the new ring.
+     */
+    private void onMembershipChange(HashRing ring) {
+        synchronized (publishLock) {
+            remoteNodes.entrySet().removeIf(entry -> {
+                if (ring.getNodes().contains(entry.getValue().origin)) {
+                    return false;
+                }
+                nodeDown(entry.getKey());
+                return true;
+            });
+        }
+        sendState();
+    }
+
+    private void receive(BrokerBus.Envelope envelope) {
+        if (membership.getNodeId().equals(envelope.origin())
+                || !envelope.destination().startsWith("/cluster/presence/")) {
+            return;
+        }
+        try {
+            switch (envelope.destination()) {
+                case EVENT_DESTINATION -> applyEvent(envelope.origin(),
+                        objectMapper.readValue(envelope.payload(), PresenceEvent.class));
+                case STATE_DESTINATION -> applyState(envelope.origin(),
+                        objectMapper.readValue(envelope.payload(), NodeState.class));
+                case SYNC_DESTINATION -> sendState();
+                default -> log.debug("Ignoring presence message for {}", envelope.destination());
+            }
+        } catch (IOException e) {
+            log.error("Dropping unreadable presence message from {}", envelope.origin(), e);
+        }
+    }
+
+    private void applyEvent(String origin, PresenceEvent event) {
+        synchronized (publishLock) {
+            RemoteNode node = remoteNode(origin, event.getNode());
+            if (event.getSequence() <= node.sequence) {
+                return;
+            }
+            if (event.getType() == PresenceEvent.Type.JOINED) {
+                node.users.put(event.getUser().getId(), event.getUser());
+            } else if (event.getType() == PresenceEvent.Type.LEFT) {
+                node.users.remove(event.getUser().getId());
+            }
+            node.sequence = event.getSequence();
+        }
+    }
+
+    private void applyState(String origin, NodeState state) {
+        synchronized (publishLock) {
+            RemoteNode node = remoteNode(origin, state.node());
+            // The bus keeps one node's order, but events may have raced ahead of a state sent on another thread
+            if (state.sequence() < node.sequence) {
+                return;
+            }
+            node.users.clear();
+            state.users().forEach(user -> node.users.put(user.getId(), user));
+            node.sequence = state.sequence();
+        }
+    }
+
+    /**
+     * Returns the copy of a remote node's users, dropping any left over from an earlier run of that node.
+     */
+    private RemoteNode remoteNode(String origin, String presenceId) {
+        RemoteNode node = remoteNodes.get(presenceId);
+        if (node != null) {
+            return node;
+        }
+        Iterator<Map.Entry<String, RemoteNode>> it = remoteNodes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, RemoteNode> entry = it.next();
+            if (entry.getValue().origin.equals(origin)) {
+                it.remove();
+                nodeDown(entry.getKey());
+            }
+        }
+        node = new RemoteNode(origin);
+        remoteNodes.put(presenceId, node);
+        return node;
+    }
+
+    private void nodeDown(String presenceId) {
+        // Every remaining node sends this; clients drop the node's users once and ignore the rest
+        messagingTemplate.convertAndSend(PRESENCE_TOPIC, PresenceEvent.builder()
+                .type(PresenceEvent.Type.NODE_DOWN)
+                .node(presenceId)
+                .build());
+        log.info("Presence of {} dropped, its node left the cluster", presenceId);
+    }
+
+    private void sendState() {
+        NodeState state;
+        synchronized (publishLock) {
+            state = new NodeState(presenceId, sequence, List.copyOf(published.values()));
+        }
+        sendToCluster(STATE_DESTINATION, state);
+    }
+
+    private void sendToCluster(String destination, Object message) {
+        BrokerBus bus = brokerBus.getIfAvailable();
+        if (bus == null) {
+            return;
+        }
+        try {
+            byte[] payload = message instanceof byte[] bytes ? bytes : objectMapper.writeValueAsBytes(message);
+            bus.publish(new BrokerBus.Envelope(membership.getNodeId(), destination, Map.of(), "application/json", payload));
+        } catch (JsonProcessingException e) {
+            log.error("Could not send presence to {}", destination, e);
+        }
+    }
+
+    /**
+     * Everyone a node has reported online, as sent in reply to a sync request.
+     */
+    record NodeState(String node, long sequence, List<UserDto> users) {
+    }
+
+    /**
+     * This node's copy of another node's online users. Guarded by publishLock.
+     */
+    private static final class RemoteNode {
+        private final String origin;
+        private final Map<Long, UserDto> users = new HashMap<>();
+        private long sequence;
+
+        private RemoteNode(String origin) {
+            this.origin = origin;
+        }
+    }
+}
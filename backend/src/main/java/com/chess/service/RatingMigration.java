@@ -0,0 +1,38 @@
+package com.chess.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills in the rating columns of rows created before they existed, on every startup. Users rated
+ * before exact ratings were stored start from their rounded rating, and games that ended before
+ * the rated flag existed count as rated, since the flush back then rated them.
+ * <p>
+ * Runs once the schema is updated and before {@link RatingService} reads any rating.
+ */
+@Component
+@DependsOn("entityManagerFactory") // the schema update adds the columns
+@Slf4j
+public class RatingMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RatingMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        int rated = jdbcTemplate.update("UPDATE users SET exact_rating = rating WHERE exact_rating IS NULL");
+        if (rated > 0) {
+            log.info("Copied the rating of {} users into exact_rating", rated);
+        }
+        int games = jdbcTemplate.update("UPDATE games SET rated = (completed_at IS NOT NULL) WHERE rated IS NULL");
+        if (games > 0) {
+            log.info("Marked whether {} games created before the rated column were rated", games);
+        }
+    }
+}
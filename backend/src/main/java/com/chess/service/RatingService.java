@@ -0,0 +1,334 @@
+package com.chess.service;
+
+import com.chess.model.User;
+import com.chess.repository.GameRepository;
+import com.chess.repository.GameRepository.ResultView;
+import com.chess.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps player ratings up to date with Glicko-2.
+ *
+ * Finished games arrive as {@link GameCompletedEvent}s once their transaction commits and are
+ * only queued, so ending a game costs no extra queries. A scheduled flush rates the queued games
+ * in the order they ended, reading all players of a batch with one query and writing their new
+ * ratings in JDBC batches. Each game is marked {@code rated} in the same transaction. Ratings are kept unrounded in {@code exactRating}, so rating games one
+ * at a time gives the same result as a replay; {@code rating} holds the same value rounded for
+ * display.
+ *
+ * Ratings read through {@link #getRating} are cached, bounded by size with the least recently
+ * used players dropped first. Every flush and recompute writes the ratings it stored into the
+ * cache once they have committed, so cached ratings follow the database without further queries.
+ *
+ * {@link #recomputeAll} replays every finished game from scratch, reading the games page by page
+ * in the order they ended, so only the ratings are held in memory. It runs on startup or on the
+ * {@code chess.rating.recompute-cron} schedule when configured. Games queued when the recompute
+ * starts have committed and are part of the replay, so they are dropped. Games that end while it
+ * runs may or may not be seen by the replay, so it marks as rated exactly the recent games it
+ * counted, and the flush rates the others later.
+ *
+ * Every node runs its own flush for the games it ended, and any node may recompute, so the
+ * ratings are guarded in the database rather than in memory. A flush locks its players' rows
+ * before it reads their ratings and which of its games are still unrated, and writes both before
+ * the locks are released. Flushes on different nodes therefore apply their games one after the
+ * other instead of overwriting each other's results. A recompute resets every row, which locks all
+ * of them, so no flush can store ratings while it writes. Any game a flush rated after the replay
+ * passed it is applied on top before the recompute commits, and a flush waiting on the locks finds
+ * the games the replay counted already marked. On one node, flushes and recomputes also take the
+ * same lock, so a local flush never waits on a recompute's row locks. A flush that fails puts its batch back at the front of the queue, so the
+ * games are rated on the next flush, still in the order they ended.
+ */
+@Service
+@DependsOn("ratingMigration")
+@Slf4j
+public class RatingService {
+
+    // Longer than any transaction that ends a game takes to commit
+    private static final Duration COMMIT_GRACE = Duration.ofMinutes(1);
+
+    private final UserRepository userRepository;
+    private final GameRepository gameRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Glicko2 glicko;
+    private final int batchSize;
+    private final int pageSize;
+    private final boolean recomputeOnStartup;
+
+    private final Deque<GameCompletedEvent> pending = new ConcurrentLinkedDeque<>();
+    private final Map<Long, Integer> ratingCache;
+
+    // Serializes this node's flushes with its recomputes
+    private final Object updateLock = new Object();
+
+    public RatingService(UserRepository userRepository,
+                         GameRepository gameRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${chess.rating.tau:0.5}") double tau,
+                         @Value("${chess.rating.batch-size:500}") int batchSize,
+                         @Value("${chess.rating.recompute-page-size:1000}") int pageSize,
+                         @Value("${chess.rating.recompute-on-startup:false}") boolean recomputeOnStartup,
+                         @Value("${chess.rating.cache-size:10000}") int cacheSize) {
+        this.userRepository = userRepository;
+        this.gameRepository = gameRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.glicko = new Glicko2(tau);
+        this.batchSize = batchSize;
+        this.pageSize = pageSize;
+        this.recomputeOnStartup = recomputeOnStartup;
+        this.ratingCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGameCompleted(GameCompletedEvent event) {
+        pending.add(event);
+    }
+
+    public int pendingResults() {
+        return pending.size();
+    }
+
+    /**
+     * Returns a player's current rating, querying only for players not in the cache.
+     */
+    public int getRating(Long userId) {
+        synchronized (ratingCache) {
+            Integer cached = ratingCache.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        int rating = userRepository.findRatingById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        synchronized (ratingCache) {
+            // A flush that committed meanwhile has already cached the newer rating
+            Integer current = ratingCache.putIfAbsent(userId, rating);
+            return current != null ? current : rating;
+        }
+    }
+
+    /**
+     * Rates every queued game.
+     *
+     * @return the number of games rated
+     */
+    @Scheduled(fixedDelayString = "${chess.rating.flush-interval:5000}")
+    public int applyPendingResults() {
+        int rated = 0;
+        int drained;
+        do {
+            synchronized (updateLock) {
+                List<GameCompletedEvent> batch = new ArrayList<>(batchSize);
+                GameCompletedEvent event;
+                while (batch.size() < batchSize && (event = pending.poll()) != null) {
+                    batch.add(event);
+                }
+                drained = batch.size();
+                if (drained > 0) {
+                    try {
+                        rated += applyBatch(batch);
+                    } catch (RuntimeException e) {
+                        log.error("Could not store ratings for {} games, retrying on the next flush: {}",
+                                drained, e.getMessage());
+                        for (int i = batch.size() - 1; i >= 0; i--) {
+                            pending.addFirst(batch.get(i));
+                        }
+                        break;
+                    }
+                }
+            }
+        } while (drained == batchSize);
+
+        if (rated > 0) {
+            log.debug("Rated {} games", rated);
+        }
+        return rated;
+    }
+
+    private int applyBatch(List<GameCompletedEvent> batch) {
+        Set<Long> playerIds = batch.stream()
+                .flatMap(event -> Stream.of(event.whitePlayerId(), event.blackPlayerId()))
+                .collect(Collectors.toSet());
+        Map<Long, User> changed = new HashMap<>();
+        Integer rated = transactionTemplate.execute(status -> {
+            // Locked before the rated flags are read, so a concurrent flush or recompute has
+            // either committed both or not started writing
+            Map<Long, User> players = userRepository.findRatingsForUpdate(playerIds).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            Set<Long> unrated = new HashSet<>(gameRepository.findUnratedIds(
+                    batch.stream().map(GameCompletedEvent::gameId).toList()));
+
+            List<Long> ratedIds = new ArrayList<>();
+            for (GameCompletedEvent event : batch) {
+                User white = players.get(event.whitePlayerId());
+                User black = players.get(event.blackPlayerId());
+                if (white == null || black == null || !unrated.contains(event.gameId())) {
+                    continue;
+                }
+                Glicko2.Rating whiteRating = ratingOf(white);
+                Glicko2.Rating blackRating = ratingOf(black);
+                double whiteScore = whiteScore(event.winnerId(), event.whitePlayerId());
+                setRating(white, glicko.update(whiteRating, blackRating, whiteScore));
+                setRating(black, glicko.update(blackRating, whiteRating, 1 - whiteScore));
+                changed.put(white.getId(), white);
+                changed.put(black.getId(), black);
+                ratedIds.add(event.gameId());
+            }
+            if (ratedIds.isEmpty()) {
+                return 0;
+            }
+            userRepository.updateRatings(changed.values());
+            gameRepository.markRated(ratedIds);
+            return ratedIds.size();
+        });
+
+        synchronized (ratingCache) {
+            changed.values().forEach(user -> ratingCache.put(user.getId(), user.getRating()));
+        }
+        return rated != null ? rated : 0;
+    }
+
+    /**
+     * Recomputes every rating by replaying all finished games in the order they ended.
+     * Players without finished games go back to the initial rating.
+     *
+     * @return the number of games replayed
+     */
+    public long recomputeAll() {
+        synchronized (updateLock) {
+            // Everything queued has committed, so the replay counts it
+            pending.clear();
+            LocalDateTime until = LocalDateTime.now();
+            LocalDateTime recentFrom = until.minus(COMMIT_GRACE);
+            Set<Long> recent = new HashSet<>();
+            Glicko2.Rating initial = new Glicko2.Rating(User.INITIAL_RATING,
+                    User.INITIAL_RATING_DEVIATION, User.INITIAL_RATING_VOLATILITY);
+            Map<Long, Glicko2.Rating> ratings = new HashMap<>();
+            long replayed = 0;
+
+            List<ResultView> page = gameRepository.findResults(until, PageRequest.of(0, pageSize));
+            while (!page.isEmpty()) {
+                for (ResultView game : page) {
+                    replay(ratings, game, initial);
+                    if (!game.getCompletedAt().isBefore(recentFrom)) {
+                        recent.add(game.getId());
+                    }
+                }
+                replayed += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                ResultView last = page.get(page.size() - 1);
+                page = gameRepository.findResultsAfter(last.getCompletedAt(), last.getId(), until,
+                        PageRequest.of(0, pageSize));
+            }
+
+            // One transaction, so nobody sees the ratings half reset
+            List<User> rated = transactionTemplate.execute(status -> {
+                // Locks every user row, so no flush can store ratings until this commits
+                userRepository.resetRatings(User.INITIAL_RATING, User.INITIAL_RATING,
+                        User.INITIAL_RATING_DEVIATION, User.INITIAL_RATING_VOLATILITY);
+                // Rated by a flush after the replay passed them; the reset would lose them
+                List<ResultView> ratedMeanwhile = gameRepository.findRatedResultsSince(recentFrom).stream()
+                        .filter(game -> !recent.contains(game.getId()))
+                        .toList();
+                ratedMeanwhile.forEach(game -> replay(ratings, game, initial));
+                if (!ratedMeanwhile.isEmpty()) {
+                    log.info("Applied {} games that were rated during the replay", ratedMeanwhile.size());
+                }
+
+                List<User> users = ratings.entrySet().stream()
+                        .map(entry -> {
+                            User user = User.builder().id(entry.getKey()).build();
+                            setRating(user, entry.getValue());
+                            return user;
+                        })
+                        .toList();
+                userRepository.updateRatings(users);
+                // Older games have all committed, so the replay saw every one of them
+                gameRepository.markRatedBefore(recentFrom);
+                if (!recent.isEmpty()) {
+                    gameRepository.markRated(recent);
+                }
+                return users;
+            });
+            synchronized (ratingCache) {
+                ratingCache.clear();
+                rated.forEach(user -> ratingCache.put(user.getId(), user.getRating()));
+            }
+
+            log.info("Recomputed ratings of {} players from {} games", rated.size(), replayed);
+            return replayed;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeOnStartup() {
+        if (recomputeOnStartup) {
+            recomputeAll();
+        }
+    }
+
+    // Off unless chess.rating.recompute-cron is set
+    @Scheduled(cron = "${chess.rating.recompute-cron:-}")
+    public void recomputeOnSchedule() {
+        recomputeAll();
+    }
+
+    private void replay(Map<Long, Glicko2.Rating> ratings, ResultView game, Glicko2.Rating initial) {
+        Glicko2.Rating white = ratings.getOrDefault(game.getWhitePlayerId(), initial);
+        Glicko2.Rating black = ratings.getOrDefault(game.getBlackPlayerId(), initial);
+        double whiteScore = whiteScore(game.getWinnerId(), game.getWhitePlayerId());
+        ratings.put(game.getWhitePlayerId(), glicko.update(white, black, whiteScore));
+        ratings.put(game.getBlackPlayerId(), glicko.update(black, white, 1 - whiteScore));
+    }
+
+    private static double whiteScore(Long winnerId, Long whitePlayerId) {
+        if (winnerId == null) {
+            return 0.5;
+        }
+        return winnerId.equals(whitePlayerId) ? 1 : 0;
+    }
+
+    private static Glicko2.Rating ratingOf(User user) {
+        // Players rated before exact ratings were stored only have the rounded one
+        double rating = user.getExactRating() != null ? user.getExactRating() : user.getRating();
+        return new Glicko2.Rating(rating, user.getRatingDeviation(), user.getRatingVolatility());
+    }
+
+    private static void setRating(User user, Glicko2.Rating rating) {
+        user.setExactRating(rating.rating());
+        user.setRating((int) Math.round(rating.rating()));
+        user.setRatingDeviation(rating.deviation());
+        user.setRatingVolatility(rating.volatility());
+    }
+}
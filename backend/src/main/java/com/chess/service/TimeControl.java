@@ -0,0 +1,41 @@
+package com.chess.service;
+
+/**
+ * Time per player and increment per move for a game, in milliseconds. A base time of zero
+ * means the game is untimed.
+ */
+public record TimeControl(long baseMillis, long incrementMillis) {
+
+    public static final TimeControl UNTIMED = new TimeControl(0, 0);
+
+    public TimeControl {
+        if (baseMillis < 0 || incrementMillis < 0) {
+            throw new IllegalArgumentException("Time control cannot be negative");
+        }
+        if (baseMillis == 0 && incrementMillis != 0) {
+            throw new IllegalArgumentException("Untimed games cannot have an increment");
+        }
+    }
+
+    /**
+     * Reads a time control written as {@code base+increment} in milliseconds, e.g.
+     * {@code 300000+2000}; a bare number has no increment.
+     */
+    public static TimeControl parse(String value) {
+        String[] parts = value.trim().split("\\+", -1);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Invalid time control: " + value);
+        }
+        try {
+            long baseMillis = Long.parseLong(parts[0].trim());
+            long incrementMillis = parts.length == 2 ? Long.parseLong(parts[1].trim()) : 0;
+            return new TimeControl(baseMillis, incrementMillis);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time control: " + value);
+        }
+    }
+
+    public boolean isTimed() {
+        return baseMillis > 0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.chess.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: a ring of buckets, each covering one tick.
+ *
+ * A timeout goes into the bucket of the tick it is due on, modulo the wheel size, so scheduling
+ * and cancelling are O(1) however many timeouts are pending. Each tick visits a single bucket
+ * and fires the entries that are due; entries due on a later revolution stay where they are.
+ * Timeouts fire on the first tick at or after their deadline, so up to one tick late.
+ *
+ * Not tied to a clock: callers pass the current time to {@link #advance}. All methods are
+ * synchronized, since each one only touches a few entries.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout<T>[] buckets;
+    private final int mask;
+
+    // The next tick to process, counted from startMillis
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        // Round up to a power of two so a bucket can be picked with a mask
+        int length = Integer.highestOneBit(Math.max(wheelSize - 1, 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new Timeout[length];
+        this.mask = length - 1;
+    }
+
+    /**
+     * Schedules {@code payload} to fire at {@code deadlineMillis}. A deadline already passed
+     * fires on the next call to {@link #advance}.
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+        long offset = deadlineMillis - startMillis;
+        long tick = Math.max(offset <= 0 ? 0 : (offset + tickMillis - 1) / tickMillis, currentTick);
+        Timeout<T> timeout = new Timeout<>(payload, tick);
+        int bucket = (int) (tick & mask);
+        timeout.next = buckets[bucket];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        buckets[bucket] = timeout;
+        timeout.pending = true;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes a timeout before it fires.
+     *
+     * @return true if it was still pending
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (!timeout.pending) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Processes every tick up to {@code nowMillis} and returns the payloads that came due, oldest first.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long lastTick = (nowMillis - startMillis) / tickMillis;
+        List<T> expired = new ArrayList<>();
+        // After a full revolution every bucket has been visited once, so skip ahead
+        if (lastTick - currentTick > mask) {
+            currentTick = lastTick - mask;
+        }
+        for (; currentTick <= lastTick; currentTick++) {
+            Timeout<T> timeout = buckets[(int) (currentTick & mask)];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.tick <= lastTick) {
+                    unlink(timeout);
+                    expired.add(timeout.payload);
+                }
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[(int) (timeout.tick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.pending = false;
+        size--;
+    }
+
+    /**
+     * Handle for a scheduled payload, used to cancel it.
+     */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long tick;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private volatile boolean pending;
+
+        private Timeout(T payload, long tick) {
+            this.payload = payload;
+            this.tick = tick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public boolean isPending() {
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.chess.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrokerBusForwarderTest {
+
+    private final List<Node> nodes = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        InProcessBrokerBus bus = new InProcessBrokerBus();
+        for (String nodeId : List.of("node-a", "node-b", "node-c")) {
+            nodes.add(new Node(bus, nodeId));
+        }
+    }
+
+    @Test
+    void topicMessages_FanOutToEveryNodeExactlyOnce() {
+        nodes.get(0).brokerChannel.send(message("/topic/game/1/moves", "e2e4", null));
+
+        for (Node node : nodes) {
+            assertEquals(1, node.received.size(), node.nodeId);
+            Message<?> received = node.received.get(0);
+            assertEquals("/topic/game/1/moves", SimpMessageHeaderAccessor.getDestination(received.getHeaders()));
+            assertEquals("e2e4", new String((byte[]) received.getPayload(), StandardCharsets.UTF_8));
+        }
+        assertNotNull(nodes.get(1).received.get(0).getHeaders().get(BrokerBusForwarder.FORWARDED_FROM_HEADER));
+    }
+
+    @Test
+    void forwardedMessages_KeepUserBroadcastHeadersAndSkipLocalOnlyTopics() {
+        nodes.get(0).brokerChannel.send(message(BrokerBusForwarder.USER_DESTINATION_BROADCAST, "invite",
+                "/user/bob@example.com/queue/invitations"));
+        nodes.get(0).brokerChannel.send(message("/topic/local", "joined", null));
+
+        Message<?> received = nodes.get(1).received.get(0);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(received);
+        assertEquals("/user/bob@example.com/queue/invitations",
+                accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION));
+        // The user destination handler only resolves broadcasts that carry a session id
+        assertNotNull(accessor.getSessionId());
+        assertEquals(1, nodes.get(1).received.size());
+        assertEquals(2, nodes.get(0).received.size());
+    }
+
+    private static Message<byte[]> message(String destination, String payload, String originalDestination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        if (originalDestination != null) {
+            accessor.setNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, originalDestination);
+        }
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static class Node {
+        final String nodeId;
+        final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        final List<Message<?>> received = new CopyOnWriteArrayList<>();
+
+        Node(InProcessBrokerBus bus, String nodeId) {
+            this.nodeId = nodeId;
+            BrokerBusForwarder forwarder = new BrokerBusForwarder(bus, brokerChannel, nodeId, List.of("/topic/local"),
+                    new StaticListableBeanFactory().getBeanProvider(UserDestinationMessageHandler.class));
+            forwarder.subscribe();
+            brokerChannel.addInterceptor(forwarder);
+            brokerChannel.subscribe(received::add);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.chess.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = jwtUtil(86400000L);
+    }
+
+    @Test
+    void parse_ReturnsPrincipalFromSingleParse() {
+        String token = jwtUtil.generateToken("test@example.com", 42L);
+
+        Optional<JwtPrincipal> principal = jwtUtil.parse(token);
+
+        assertTrue(principal.isPresent());
+        assertEquals("test@example.com", principal.get().getUsername());
+        assertEquals("test@example.com", principal.get().getName());
+        assertEquals(42L, principal.get().getUserId());
+        assertFalse(principal.get().isExpired());
+        // A repeat of the same token is answered from the verified-token cache
+        assertSame(principal.get(), jwtUtil.parse(token).orElseThrow());
+    }
+
+    @Test
+    void parse_RejectsTamperedAndExpiredTokens() {
+        String token = jwtUtil.generateToken("test@example.com", 42L);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        String expired = jwtUtil(-1000L).generateToken("test@example.com", 42L);
+
+        assertTrue(jwtUtil.parse(tampered).isEmpty());
+        assertTrue(jwtUtil.parse(expired).isEmpty());
+        assertTrue(jwtUtil.parse("not-a-jwt").isEmpty());
+        assertTrue(jwtUtil.parse(null).isEmpty());
+    }
+
+    private JwtUtil jwtUtil(long expiration) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", SECRET);
+        ReflectionTestUtils.setField(util, "expiration", expiration);
+        ReflectionTestUtils.setField(util, "verifiedCacheSize", 100);
+        util.init();
+        return util;
+    }
+}
@@ -0,0 +1,61 @@
+package com.chess.config;
+
+import com.chess.model.Game;
+import com.chess.model.User;
+import com.chess.repository.GameRepository;
+import com.chess.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(SequenceMigration.class)
+@TestPropertySource(properties = "spring.sql.init.mode=never")
+// ALTER SEQUENCE commits, so the test runs outside the usual rolled-back transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SequenceMigrationTest {
+
+    @Autowired
+    private SequenceMigration sequenceMigration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Test
+    void migrate_MovesSequencesPastExistingRowsAndVersionsOldGames() {
+        // Rows written before the tables used sequences and optimistic locking
+        jdbcTemplate.update("INSERT INTO users (id, email, password_hash, display_name, created_at, online) " +
+                "VALUES (1000, 'old@example.com', 'x', 'Old', CURRENT_TIMESTAMP, FALSE)");
+        jdbcTemplate.update("INSERT INTO games (id, white_player_id, black_player_id, status, created_at, " +
+                "move_count, current_turn, version) VALUES (700, 1000, 1000, 'IN_PROGRESS', CURRENT_TIMESTAMP, 0, 'WHITE', NULL)");
+
+        sequenceMigration.migrate();
+        // A second run finds nothing to do
+        sequenceMigration.migrate();
+
+        User user = userRepository.save(User.builder()
+                .email("new@example.com").passwordHash("x").displayName("New").online(false).build());
+        assertTrue(user.getId() > 1000, "user id " + user.getId());
+        Game game = gameRepository.save(Game.builder().whitePlayerId(1000L).blackPlayerId(1000L)
+                .moveCount(0).currentTurn(Game.PlayerColor.WHITE).build());
+        assertTrue(game.getId() > 700, "game id " + game.getId());
+
+        Game old = gameRepository.findById(700L).orElseThrow();
+        assertEquals(0L, old.getVersion());
+        old.setMoveCount(1);
+        assertEquals(1L, gameRepository.save(old).getVersion());
+    }
+}
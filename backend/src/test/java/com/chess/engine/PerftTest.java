@@ -0,0 +1,80 @@
+package com.chess.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Perft counts for the standard test positions (https://www.chessprogramming.org/Perft_Results).
+ */
+class PerftTest {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @ParameterizedTest(name = "{0} depth {1}")
+    @CsvSource(delimiter = ';', value = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1; 1; 20",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1; 2; 400",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1; 3; 8902",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1; 4; 197281",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1; 1; 48",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1; 2; 2039",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1; 3; 97862",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1; 1; 14",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1; 3; 2812",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1; 4; 43238",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1; 1; 6",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1; 3; 9467",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8; 1; 44",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8; 3; 62379",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10; 3; 89890"
+    })
+    void perft_MatchesPublishedCounts(String fen, int depth, long expectedNodes) {
+        Position position = Position.fromFen(fen);
+
+        assertEquals(expectedNodes, Perft.perft(position, depth));
+    }
+
+    @Test
+    void makeUnmake_RestoresPositionAndHash() {
+        Position position = Position.fromFen(KIWIPETE);
+        long hash = position.hash();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        int count = MoveGenerator.generateLegal(position, moves);
+        for (int i = 0; i < count; i++) {
+            position.make(moves[i]);
+            position.unmake(moves[i]);
+        }
+
+        assertEquals(hash, position.hash());
+        assertEquals(48, MoveGenerator.generateLegal(position, moves));
+    }
+
+    @Test
+    void incrementalHash_MatchesHashFromFen() {
+        Position position = Position.initial();
+        // 1. e4 d5 2. e5 f5 leaves an en passant capture available on f6
+        position.applyMove(Bitboards.parseSquare("e2"), Bitboards.parseSquare("e4"), Piece.NONE);
+        position.applyMove(Bitboards.parseSquare("d7"), Bitboards.parseSquare("d5"), Piece.NONE);
+        position.applyMove(Bitboards.parseSquare("e4"), Bitboards.parseSquare("e5"), Piece.NONE);
+        position.applyMove(Bitboards.parseSquare("f7"), Bitboards.parseSquare("f5"), Piece.NONE);
+
+        Position expected = Position.fromFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+
+        assertEquals(expected.hash(), position.hash());
+    }
+
+    @Test
+    void checkmateAndStalemate_HaveNoLegalMoves() {
+        Position checkmate = Position.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        Position stalemate = Position.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+
+        assertTrue(checkmate.isInCheck(Piece.WHITE));
+        assertFalse(checkmate.hasLegalMove());
+        assertFalse(stalemate.isInCheck(Piece.BLACK));
+        assertFalse(stalemate.hasLegalMove());
+    }
+}
@@ -0,0 +1,55 @@
+package com.chess.repository;
+
+import com.chess.model.Move;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class MoveRepositoryTest {
+
+    @Autowired
+    private MoveRepository moveRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void insertAll_WritesMovesInJdbcBatches() {
+        List<Move> moves = new ArrayList<>();
+        for (int ply = 1; ply <= 120; ply++) {
+            moves.add(Move.builder()
+                    .gameId(1L)
+                    .playerId(ply % 2 == 1 ? 1L : 2L)
+                    .fromSquare("e2")
+                    .toSquare("e4")
+                    .piece("P")
+                    .san("e4")
+                    .moveNumber(ply)
+                    .build());
+        }
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        moveRepository.insertAll(moves);
+
+        assertEquals(120, statistics.getEntityInsertCount());
+        // Three insert batches plus a few pooled sequence calls, instead of one round trip per move
+        assertTrue(statistics.getPrepareStatementCount() <= 8, "statements: " + statistics.getPrepareStatementCount());
+        assertTrue(moves.stream().allMatch(move -> move.getId() != null && !entityManager.contains(move)));
+        assertEquals(120, moveRepository.countByGameId(1L));
+    }
+}
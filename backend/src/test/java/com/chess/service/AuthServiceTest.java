@@ -41,6 +41,9 @@ class AuthServiceTest {
     @Mock
     private PresenceService presenceService;
 
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
     @InjectMocks
     private AuthService authService;
 
@@ -87,6 +90,7 @@ class AuthServiceTest {
         verify(userRepository).save(any(User.class));
         verify(jwtUtil).generateToken("test@example.com", user.getId());
         verify(presenceService).markUserOnline(user.getId());
+        verify(userDetailsService).evictUser("test@example.com");
     }
 
     @Test
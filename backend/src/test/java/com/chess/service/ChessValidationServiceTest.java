@@ -1,5 +1,8 @@
 package com.chess.service;
 
+import com.chess.engine.MoveCodec;
+import com.chess.engine.Position;
+import com.chess.model.Game;
 import com.chess.model.Move;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -74,7 +77,213 @@ class ChessValidationServiceTest {
             validationService.validateAndGetPiece(moves, "e4", "e5", true, null);
         });
     }
-}
 
+    @Test
+    void validateBlockedBishop_ThrowsException() {
+        List<Move> moves = new ArrayList<>();
+
+        // Bishop on f1 is blocked by the pawn on e2
+        assertThrows(IllegalArgumentException.class, () -> {
+            validationService.validateAndGetPiece(moves, "f1", "c4", true, null);
+        });
+    }
+
+    @Test
+    void validateBishopAfterPawnMove_Success() {
+        List<Move> moves = new ArrayList<>();
+        moves.add(move(1, "e2", "e4", "P"));
+        moves.add(move(2, "e7", "e5", "P"));
+
+        String piece = validationService.validateAndGetPiece(moves, "f1", "c4", true, null);
+
+        assertEquals("B", piece);
+    }
+
+    @Test
+    void validateDoublePawnPushThroughPiece_ThrowsException() {
+        List<Move> moves = new ArrayList<>();
+        moves.add(move(1, "g1", "f3", "N"));
+        moves.add(move(2, "a7", "a6", "P"));
+
+        // Knight on f3 blocks the f-pawn's double push
+        assertThrows(IllegalArgumentException.class, () -> {
+            validationService.validateAndGetPiece(moves, "f2", "f4", true, null);
+        });
+    }
+
+    @Test
+    void getPieceAt_ReturnsCapturablePiece() {
+        List<Move> moves = new ArrayList<>();
+        moves.add(move(1, "e2", "e4", "P"));
+        moves.add(move(2, "d7", "d5", "P"));
+
+        String piece = validationService.validateAndGetPiece(moves, "e4", "d5", true, null);
+
+        assertEquals("P", piece);
+        assertEquals("p", validationService.getPieceAt(moves, "d5"));
+        assertNull(validationService.getPieceAt(moves, "e2"));
+    }
+
+    @Test
+    void validateAndApply_ReportsCaptureAndSan() {
+        Position position = Position.initial();
+        validationService.validateAndApply(position, "e2", "e4", true, null);
+        validationService.validateAndApply(position, "d7", "d5", false, null);
+
+        MoveResult result = validationService.validateAndApply(position, "e4", "d5", true, null);
+
+        assertEquals("P", result.getPiece());
+        assertEquals("p", result.getCapturedPiece());
+        assertEquals("exd5", result.getSan());
+        assertFalse(result.isCheck());
+        assertEquals(position.hash(), result.getPositionHash());
+    }
+
+    @Test
+    void validateAndApply_DisambiguatesKnights() {
+        Position position = Position.initial();
+        validationService.validateAndApply(position, "g1", "f3", true, null);
+        validationService.validateAndApply(position, "a7", "a6", false, null);
+        validationService.validateAndApply(position, "d2", "d3", true, null);
+        validationService.validateAndApply(position, "a6", "a5", false, null);
+
+        MoveResult result = validationService.validateAndApply(position, "b1", "d2", true, null);
+
+        assertEquals("Nbd2", result.getSan());
+    }
+
+    @Test
+    void validateAndApply_DetectsCheckmate() {
+        Position position = Position.initial();
+        validationService.validateAndApply(position, "f2", "f3", true, null);
+        validationService.validateAndApply(position, "e7", "e5", false, null);
+        validationService.validateAndApply(position, "g2", "g4", true, null);
+
+        MoveResult result = validationService.validateAndApply(position, "d8", "h4", false, null);
+
+        assertTrue(result.isCheck());
+        assertTrue(result.isCheckmate());
+        assertEquals("Qh4#", result.getSan());
+    }
+
+    @Test
+    void validateAndApply_InvalidMoveLeavesPositionUnchanged() {
+        Position position = Position.initial();
+        long hash = position.hash();
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            validationService.validateAndApply(position, "e2", "e5", true, null);
+        });
+
+        assertEquals(hash, position.hash());
+        assertEquals("P", validationService.getPieceAt(position, "e2"));
+    }
+
+    @Test
+    void positionHash_MatchesForTranspositions() {
+        Position first = Position.initial();
+        validationService.validateAndApply(first, "g1", "f3", true, null);
+        validationService.validateAndApply(first, "g8", "f6", false, null);
+        validationService.validateAndApply(first, "b1", "c3", true, null);
+
+        Position second = Position.initial();
+        validationService.validateAndApply(second, "b1", "c3", true, null);
+        validationService.validateAndApply(second, "g8", "f6", false, null);
+        validationService.validateAndApply(second, "g1", "f3", true, null);
+
+        assertEquals(first.hash(), second.hash());
+    }
 
+    @Test
+    void validateAndApply_Castling() {
+        Position position = Position.fromFen("r3k2r/pppppppp/8/8/8/8/PPPPPPPP/R3K2R w KQkq - 0 1");
+
+        MoveResult result = validationService.validateAndApply(position, "e1", "g1", true, null);
+
+        assertEquals("O-O", result.getSan());
+        assertEquals("K", validationService.getPieceAt(position, "g1"));
+        assertEquals("R", validationService.getPieceAt(position, "f1"));
+        assertNull(validationService.getPieceAt(position, "h1"));
+    }
+
+    @Test
+    void validateCastlingThroughCheck_ThrowsException() {
+        // Black rook on f8 covers f1, so white may not castle kingside
+        Position position = Position.fromFen("4kr2/8/8/8/8/8/8/R3K2R w KQ - 0 1");
 
+        assertThrows(IllegalArgumentException.class, () -> {
+            validationService.validateAndApply(position, "e1", "g1", true, null);
+        });
+        assertEquals("O-O-O", validationService.validateAndApply(position, "e1", "c1", true, null).getSan());
+    }
+
+    @Test
+    void validateAndApply_EnPassant() {
+        Position position = Position.initial();
+        validationService.validateAndApply(position, "e2", "e4", true, null);
+        validationService.validateAndApply(position, "a7", "a6", false, null);
+        validationService.validateAndApply(position, "e4", "e5", true, null);
+        validationService.validateAndApply(position, "d7", "d5", false, null);
+
+        MoveResult result = validationService.validateAndApply(position, "e5", "d6", true, null);
+
+        assertEquals("exd6", result.getSan());
+        assertEquals("p", result.getCapturedPiece());
+        assertNull(validationService.getPieceAt(position, "d5"));
+    }
+
+    @Test
+    void validatePinnedPieceMove_ThrowsException() {
+        // Knight on e2 is pinned to the king by the rook on e8
+        Position position = Position.fromFen("4r1k1/8/8/8/8/8/4N3/4K3 w - - 0 1");
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> {
+            validationService.validateAndApply(position, "e2", "c3", true, null);
+        });
+        assertEquals("Move leaves king in check", ex.getMessage());
+    }
+
+    @Test
+    void validateAndApply_DetectsStalemate() {
+        Position position = Position.fromFen("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1");
+
+        MoveResult result = validationService.validateAndApply(position, "f1", "f7", true, null);
+
+        assertFalse(result.isCheck());
+        assertFalse(result.isCheckmate());
+        assertTrue(result.isStalemate());
+    }
+
+    @Test
+    void unpackMoves_ReplaysPackedGame() {
+        Position position = Position.initial();
+        String[][] line = {{"e2", "e4"}, {"d7", "d5"}, {"e4", "d5"}, {"g8", "f6"}, {"f1", "b5"}, {"c7", "c6"}};
+        int[] encoded = new int[line.length];
+        for (int i = 0; i < line.length; i++) {
+            encoded[i] = validationService.validateAndApply(position, line[i][0], line[i][1], i % 2 == 0, null)
+                    .getEncodedMove();
+        }
+        Game game = Game.builder().id(7L).whitePlayerId(1L).blackPlayerId(2L)
+                .packedMoves(MoveCodec.pack(encoded))
+                .build();
+
+        List<Move> moves = validationService.unpackMoves(game);
+
+        assertEquals(12, game.getPackedMoves().length);
+        assertEquals(List.of("e4", "d5", "exd5", "Nf6", "Bb5+", "c6"), moves.stream().map(Move::getSan).toList());
+        assertEquals("p", moves.get(2).getCapturedPiece());
+        assertEquals(2L, moves.get(5).getPlayerId());
+        assertEquals(6, moves.get(5).getMoveNumber());
+        assertEquals(position.hash(), validationService.reconstructBoard(game.getPackedMoves()).hash());
+    }
+
+    private Move move(int moveNumber, String from, String to, String piece) {
+        return Move.builder()
+                .moveNumber(moveNumber)
+                .fromSquare(from)
+                .toSquare(to)
+                .piece(piece)
+                .san(to)
+                .build();
+    }
+}
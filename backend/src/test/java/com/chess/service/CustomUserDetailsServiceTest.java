@@ -0,0 +1,102 @@
+package com.chess.service;
+
+import com.chess.model.User;
+import com.chess.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private CustomUserDetailsService userDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userDetailsService, "userCacheTtl", 60000L);
+        ReflectionTestUtils.setField(userDetailsService, "userCacheMaxSize", 2);
+        userDetailsService.init();
+        user = new User();
+        user.setId(1L);
+        user.setEmail("test@example.com");
+        user.setPasswordHash("hash");
+    }
+
+    @Test
+    void loadCachedUser_HitsDatabaseOnceUntilEvicted() {
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadCachedUser("test@example.com");
+        userDetailsService.loadCachedUser("test@example.com");
+        verify(userRepository, times(1)).findByEmail("test@example.com");
+
+        // Revocation: once evicted, a removed account is no longer accepted
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.empty());
+        userDetailsService.evictUser("test@example.com");
+        assertThrows(UsernameNotFoundException.class,
+                () -> userDetailsService.loadCachedUser("test@example.com"));
+    }
+
+    @Test
+    void loadCachedUser_ZeroTtlDisablesCache() {
+        ReflectionTestUtils.setField(userDetailsService, "userCacheTtl", 0L);
+        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadCachedUser("test@example.com");
+        userDetailsService.loadCachedUser("test@example.com");
+
+        verify(userRepository, times(2)).findByEmail("test@example.com");
+    }
+
+    @Test
+    void loadCachedUser_KeepsOnlyMostRecentUsers() {
+        when(userRepository.findByEmail(anyString())).thenAnswer(invocation -> {
+            User found = new User();
+            found.setEmail(invocation.getArgument(0));
+            found.setPasswordHash("hash");
+            return Optional.of(found);
+        });
+
+        userDetailsService.loadCachedUser("a@example.com");
+        userDetailsService.loadCachedUser("b@example.com");
+        userDetailsService.loadCachedUser("a@example.com");
+        userDetailsService.loadCachedUser("c@example.com");
+
+        assertEquals(2, userDetailsService.cachedUsers());
+        // b was the least recently used, so only it is read again
+        userDetailsService.loadCachedUser("a@example.com");
+        userDetailsService.loadCachedUser("b@example.com");
+        verify(userRepository, times(1)).findByEmail("a@example.com");
+        verify(userRepository, times(2)).findByEmail("b@example.com");
+    }
+
+    @Test
+    void loadCachedUser_DropsExpiredEntriesOnInsert() throws InterruptedException {
+        // Long enough that an entry never expires while it is being inserted
+        ReflectionTestUtils.setField(userDetailsService, "userCacheTtl", 200L);
+        userDetailsService.init();
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+
+        userDetailsService.loadCachedUser("a@example.com");
+        Thread.sleep(300);
+        userDetailsService.loadCachedUser("b@example.com");
+
+        assertEquals(1, userDetailsService.cachedUsers());
+    }
+}
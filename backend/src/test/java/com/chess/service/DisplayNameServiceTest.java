@@ -0,0 +1,72 @@
+package com.chess.service;
+
+import com.chess.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DisplayNameServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private DisplayNameService displayNameService;
+
+    @BeforeEach
+    void setUp() {
+        displayNameService = new DisplayNameService(userRepository, 2);
+    }
+
+    @Test
+    void getDisplayNames_LoadsMissingNamesInOneQueryAndCachesThem() {
+        when(userRepository.findByIdIn(anyCollection())).thenReturn(List.of(view(1L, "Alice"), view(2L, "Bob")));
+
+        Map<Long, String> first = displayNameService.getDisplayNames(List.of(1L, 2L, 3L));
+        Map<Long, String> second = displayNameService.getDisplayNames(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, "Alice", 2L, "Bob"), first);
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findByIdIn(Set.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void getDisplayNames_EvictsLeastRecentlyUsedBeyondMaxSize() {
+        when(userRepository.findByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> view(id, "User " + id)).toList();
+        });
+
+        displayNameService.getDisplayName(1L);
+        displayNameService.getDisplayName(2L);
+        displayNameService.getDisplayName(3L);
+        displayNameService.getDisplayName(1L);
+
+        verify(userRepository, times(2)).findByIdIn(Set.of(1L));
+    }
+
+    private UserRepository.DisplayNameView view(Long id, String displayName) {
+        return new UserRepository.DisplayNameView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getDisplayName() {
+                return displayName;
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.chess.service;
+
+import com.chess.repository.GameRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class GameClockServiceTest {
+
+    private final GameClockService clockService = new GameClockService(mock(GameRepository.class), 0, 0, 10, 64, 1);
+
+    @AfterEach
+    void tearDown() {
+        clockService.stop();
+    }
+
+    @Test
+    void tick_ChecksExpiredGamesOffTheSchedulerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(2);
+        clockService.addExpiryListener(gameId -> {
+            try {
+                // A slow check, e.g. waiting for the game lock
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertNotEquals("main", Thread.currentThread().getName());
+            checked.countDown();
+        });
+        long past = System.currentTimeMillis() - 1_000;
+        clockService.schedule(1L, past);
+        clockService.schedule(2L, past);
+
+        long start = System.nanoTime();
+        clockService.tick();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        assertEquals(0, clockService.pendingDeadlines());
+
+        release.countDown();
+        assertTrue(checked.await(5, TimeUnit.SECONDS));
+    }
+}
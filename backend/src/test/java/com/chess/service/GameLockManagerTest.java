@@ -0,0 +1,68 @@
+package com.chess.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLockManagerTest {
+
+    @Test
+    void withGameLock_SerializesUpdatesToSameGame() throws Exception {
+        GameLockManager lockManager = new GameLockManager(16, 5000);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                executor.submit(() -> lockManager.withGameLock(1L, () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    return active.decrementAndGet();
+                }));
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    void withGameLock_DoesNotBlockOtherGames() throws Exception {
+        GameLockManager lockManager = new GameLockManager(16, 100);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> holder = executor.submit(() -> lockManager.withGameLock(1L, () -> {
+                held.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+
+            assertEquals("other", lockManager.withGameLock(2L, () -> "other"));
+            IllegalStateException ex = assertThrows(IllegalStateException.class,
+                    () -> lockManager.withGameLock(1L, () -> "blocked"));
+            assertEquals("Game is busy, please retry", ex.getMessage());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
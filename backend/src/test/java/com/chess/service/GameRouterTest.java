@@ -0,0 +1,105 @@
+package com.chess.service;
+
+import com.chess.config.BrokerBus;
+import com.chess.config.InProcessBrokerBus;
+import com.chess.dto.MoveDto;
+import com.chess.dto.MoveRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs several nodes in one JVM, connected by an in-process bus.
+ */
+class GameRouterTest {
+
+    private final InProcessBrokerBus bus = new InProcessBrokerBus();
+    private final List<Node> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (String nodeId : List.of("node-a", "node-b", "node-c")) {
+            nodes.add(new Node(nodeId));
+        }
+    }
+
+    @Test
+    void makeMove_RunsEachGameOnItsOwnerOnly() {
+        for (Node node : nodes) {
+            assertEquals(Set.of("node-a", "node-b", "node-c"), node.membership.getRing().getNodes());
+        }
+        MoveRequest request = new MoveRequest();
+        request.setFrom("e2");
+        request.setTo("e4");
+
+        Node entry = nodes.get(0);
+        for (long gameId = 1; gameId <= 30; gameId++) {
+            entry.router.makeMove(gameId, 1L, request);
+        }
+
+        for (long gameId = 1; gameId <= 30; gameId++) {
+            String owner = entry.membership.ownerOf(gameId);
+            for (Node node : nodes) {
+                verify(node.gameService, times(node.nodeId.equals(owner) ? 1 : 0)).makeMove(eq(gameId), eq(1L), any());
+            }
+        }
+    }
+
+    @Test
+    void membershipChange_HandsOffGamesToNewNode() {
+        clearInvocations(nodes.get(0).gameStateCache);
+        Node joined = new Node("node-d");
+        nodes.add(joined);
+
+        for (Node node : nodes) {
+            assertEquals(Set.of("node-a", "node-b", "node-c", "node-d"), node.membership.getRing().getNodes());
+        }
+        // Node A drops cached positions for exactly the games node D took over
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Predicate<Long>> dropped = ArgumentCaptor.forClass(Predicate.class);
+        verify(nodes.get(0).gameStateCache).evictWhere(dropped.capture());
+        for (long gameId = 1; gameId <= 100; gameId++) {
+            boolean ownedByA = "node-a".equals(joined.membership.ownerOf(gameId));
+            assertEquals(!ownedByA, dropped.getValue().test(gameId));
+        }
+
+        joined.membership.leave();
+        for (Node node : nodes.subList(0, 3)) {
+            assertEquals(Set.of("node-a", "node-b", "node-c"), node.membership.getRing().getNodes());
+        }
+    }
+
+    private class Node {
+        final String nodeId;
+        final GameService gameService = mock(GameService.class);
+        final GameStateCache gameStateCache = mock(GameStateCache.class);
+        final ClusterMembership membership;
+        final GameRouter router;
+
+        Node(String nodeId) {
+            this.nodeId = nodeId;
+            StaticListableBeanFactory beans = new StaticListableBeanFactory();
+            beans.addBean("brokerBus", bus);
+            membership = new ClusterMembership(nodeId, beans.getBeanProvider(BrokerBus.class), 64, 5000);
+            router = new GameRouter(membership, beans.getBeanProvider(BrokerBus.class), gameService,
+                    new GameLockManager(16, 5000), gameStateCache, mock(MoveJournal.class), mock(GameClockService.class),
+                    new ObjectMapper());
+            lenient().when(gameService.makeMove(anyLong(), anyLong(), any())).thenReturn(new MoveDto());
+            router.init();
+            membership.join();
+        }
+    }
+}
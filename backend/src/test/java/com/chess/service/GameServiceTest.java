@@ -1,25 +1,35 @@
 package com.chess.service;
 
 import com.chess.dto.GameDto;
+import com.chess.dto.GameHistoryPage;
 import com.chess.dto.MoveDto;
 import com.chess.dto.MoveRequest;
+import com.chess.engine.MoveCodec;
+import com.chess.engine.Moves;
+import com.chess.engine.Position;
 import com.chess.model.Game;
 import com.chess.model.Move;
-import com.chess.model.User;
 import com.chess.repository.GameRepository;
 import com.chess.repository.MoveRepository;
-import com.chess.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,7 +46,7 @@ class GameServiceTest {
     private MoveRepository moveRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private DisplayNameService displayNameService;
 
     @Mock
     private SimpMessagingTemplate messagingTemplate;
@@ -44,26 +54,27 @@ class GameServiceTest {
     @Mock
     private ChessValidationService validationService;
 
+    @Mock
+    private GameStateCache gameStateCache;
+
+    @Mock
+    private MoveJournal moveJournal;
+
+    @Mock
+    private GameClockService gameClockService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private GameService gameService;
 
-    private User whitePlayer;
-    private User blackPlayer;
+    private Map<Long, String> playerNames;
     private Game game;
 
     @BeforeEach
     void setUp() {
-        whitePlayer = User.builder()
-                .id(1L)
-                .email("white@example.com")
-                .displayName("White Player")
-                .build();
-
-        blackPlayer = User.builder()
-                .id(2L)
-                .email("black@example.com")
-                .displayName("Black Player")
-                .build();
+        playerNames = Map.of(1L, "White Player", 2L, "Black Player");
 
         game = Game.builder()
                 .id(1L)
@@ -78,23 +89,38 @@ class GameServiceTest {
     @Test
     void createGame_Success() {
         when(gameRepository.save(any(Game.class))).thenReturn(game);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(whitePlayer));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(blackPlayer));
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(playerNames);
 
         GameDto result = gameService.createGame(1L, 2L);
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
-        assertNotNull(result.getWhitePlayerName());
-        assertNotNull(result.getBlackPlayerName());
+        assertEquals("White Player", result.getWhitePlayerName());
+        assertEquals("Black Player", result.getBlackPlayerName());
 
         verify(gameRepository).save(any(Game.class));
     }
 
+    @Test
+    void createGames_SavesAllGamesTogether() {
+        when(gameRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(playerNames);
+
+        List<GameDto> result = gameService.createGames(List.of(
+                new Pairing(1L, 2L, TimeControl.UNTIMED), new Pairing(3L, 4L, TimeControl.UNTIMED)));
+
+        assertEquals(2, result.size());
+        assertEquals(Set.of(1L, 2L), Set.of(result.get(0).getWhitePlayerId(), result.get(0).getBlackPlayerId()));
+        assertEquals(Set.of(3L, 4L), Set.of(result.get(1).getWhitePlayerId(), result.get(1).getBlackPlayerId()));
+        verify(gameRepository).saveAll(anyList());
+        verify(gameRepository, never()).save(any(Game.class));
+        verify(displayNameService).getDisplayNames(anyCollection());
+    }
+
     @Test
     void getGame_Success() {
         when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(whitePlayer));
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(playerNames);
         when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L)).thenReturn(new ArrayList<>());
 
         GameDto result = gameService.getGame(1L);
@@ -105,6 +131,49 @@ class GameServiceTest {
         verify(moveRepository).findByGameIdOrderByMoveNumberAsc(1L);
     }
 
+    @Test
+    void getGameHistory_MergesBothSidesNewestFirst() {
+        ReflectionTestUtils.setField(gameService, "maxHistoryPageSize", 100);
+        LocalDateTime now = LocalDateTime.now();
+        Game older = historyGame(10L, 1L, 2L, now.minusDays(2));
+        Game newest = historyGame(11L, 2L, 1L, now);
+        Game middle = historyGame(12L, 1L, 2L, now.minusDays(1));
+        when(gameRepository.findByWhitePlayerIdOrderByCreatedAtDescIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(middle, older)));
+        when(gameRepository.findByBlackPlayerIdOrderByCreatedAtDescIdDesc(eq(1L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(newest)));
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(playerNames);
+
+        GameHistoryPage page = gameService.getGameHistory(1L, null, 2, false);
+
+        assertEquals(List.of(11L, 12L), page.getGames().stream().map(GameDto::getId).toList());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+        assertNull(page.getGames().get(0).getMoves());
+        verify(displayNameService, times(1)).getDisplayNames(anyCollection());
+
+        // The cursor resumes strictly after the last game of the previous page
+        when(gameRepository.findWhiteGamesBefore(eq(1L), eq(middle.getCreatedAt()), eq(12L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(older)));
+        when(gameRepository.findBlackGamesBefore(eq(1L), eq(middle.getCreatedAt()), eq(12L), any(Pageable.class)))
+                .thenReturn(new ArrayList<>());
+
+        GameHistoryPage next = gameService.getGameHistory(1L, page.getNextCursor(), 2, false);
+
+        assertEquals(List.of(10L), next.getGames().stream().map(GameDto::getId).toList());
+        assertFalse(next.isHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void getGameHistory_InvalidCursor_ThrowsException() {
+        ReflectionTestUtils.setField(gameService, "maxHistoryPageSize", 100);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> gameService.getGameHistory(1L, "not-a-cursor", 20, false));
+        assertEquals("Invalid cursor", ex.getMessage());
+    }
+
     @Test
     void makeMove_Success() {
         MoveRequest moveRequest = new MoveRequest();
@@ -123,10 +192,9 @@ class GameServiceTest {
                 .build();
 
         when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
-        when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L)).thenReturn(new ArrayList<>());
-        when(validationService.validateAndGetPiece(any(), anyString(), anyString(), anyBoolean(), any()))
-                .thenReturn("P");
-        when(validationService.getPieceAt(any(), anyString())).thenReturn(null);
+        when(gameStateCache.getWorkingCopy(1L, 0, List.of())).thenReturn(Position.initial());
+        when(validationService.validateAndApply(any(Position.class), anyString(), anyString(), anyBoolean(), any()))
+                .thenReturn(MoveResult.builder().piece("P").san("e4").build());
         when(moveRepository.save(any(Move.class))).thenReturn(move);
         when(gameRepository.save(any(Game.class))).thenReturn(game);
         doNothing().when(messagingTemplate).convertAndSend(any(String.class), any(Object.class));
@@ -138,10 +206,179 @@ class GameServiceTest {
         assertEquals("e4", result.getToSquare());
 
         verify(moveRepository).save(any(Move.class));
+        verify(moveRepository, never()).findByGameIdOrderByMoveNumberAsc(anyLong());
+        verify(gameStateCache).recordMove(eq(1L), eq(move), any(Position.class));
         verify(gameRepository).save(any(Game.class));
         verify(messagingTemplate).convertAndSend(any(String.class), any(Object.class));
     }
 
+    @Test
+    void makeMove_Journaled_AppendsWithoutWritingRows() {
+        MoveRequest moveRequest = new MoveRequest();
+        moveRequest.setFrom("e7");
+        moveRequest.setTo("e5");
+
+        // White's first move is still in the journal, so the games row says move 0 / white to move
+        Move pending = Move.builder().gameId(1L).playerId(1L).moveNumber(1).build();
+        when(moveJournal.isEnabled()).thenReturn(true);
+        when(moveJournal.pendingMoves(1L)).thenReturn(List.of(pending));
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(gameStateCache.getWorkingCopy(1L, 1, List.of(pending))).thenReturn(Position.initial());
+        when(validationService.validateAndApply(any(Position.class), anyString(), anyString(), eq(false), any()))
+                .thenReturn(MoveResult.builder().piece("P").san("e5").build());
+
+        MoveDto result = gameService.makeMove(1L, 2L, moveRequest);
+
+        assertEquals(2, result.getMoveNumber());
+        assertNotNull(result.getCreatedAt());
+        verify(moveJournal).append(any(Move.class));
+        verify(moveRepository, never()).save(any(Move.class));
+        verify(gameRepository, never()).save(any(Game.class));
+        assertEquals(0, game.getMoveCount());
+    }
+
+    @Test
+    void makeMove_Journaled_RolledBack_NeverReachesJournal() {
+        MoveRequest moveRequest = new MoveRequest();
+        moveRequest.setFrom("e2");
+        moveRequest.setTo("e4");
+
+        when(moveJournal.isEnabled()).thenReturn(true);
+        when(moveJournal.pendingMoves(1L)).thenReturn(List.of());
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(gameStateCache.getWorkingCopy(1L, 0, List.of())).thenReturn(Position.initial());
+        when(validationService.validateAndApply(any(Position.class), anyString(), anyString(), eq(true), any()))
+                .thenReturn(MoveResult.builder().piece("P").san("e4").build());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            gameService.makeMove(1L, 1L, moveRequest);
+            verify(moveJournal, never()).append(any(Move.class));
+
+            // The transaction fails after the move was made
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(moveJournal, never()).append(any(Move.class));
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    void makeMove_Packed_AppendsToGameRowWithoutMoveRows() {
+        MoveRequest moveRequest = new MoveRequest();
+        moveRequest.setFrom("e2");
+        moveRequest.setTo("e4");
+
+        game.setPackedMoves(new byte[0]);
+        int encoded = Moves.encode(12, 28, Moves.DOUBLE_PUSH);
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(gameStateCache.getWorkingCopy(game)).thenReturn(Position.initial());
+        when(validationService.validateAndApply(any(Position.class), anyString(), anyString(), anyBoolean(), any()))
+                .thenReturn(MoveResult.builder().piece("P").san("e4").encodedMove(encoded).build());
+        when(gameRepository.save(any(Game.class))).thenReturn(game);
+
+        MoveDto result = gameService.makeMove(1L, 1L, moveRequest);
+
+        assertEquals(1, result.getMoveNumber());
+        assertArrayEquals(MoveCodec.pack(new int[] {encoded}), game.getPackedMoves());
+        assertEquals(1, game.getMoveCount());
+        verify(moveRepository, never()).save(any(Move.class));
+        verify(moveJournal, never()).append(any(Move.class));
+        verify(gameRepository).save(game);
+    }
+
+    @Test
+    void makeMove_Checkmate_CompletesGame() {
+        MoveRequest moveRequest = new MoveRequest();
+        moveRequest.setFrom("d1");
+        moveRequest.setTo("h5");
+
+        Move move = Move.builder()
+                .id(1L)
+                .gameId(1L)
+                .playerId(1L)
+                .fromSquare("d1")
+                .toSquare("h5")
+                .piece("Q")
+                .san("Qh5#")
+                .moveNumber(1)
+                .build();
+
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(gameStateCache.getWorkingCopy(1L, 0, List.of())).thenReturn(Position.initial());
+        when(validationService.validateAndApply(any(Position.class), anyString(), anyString(), anyBoolean(), any()))
+                .thenReturn(MoveResult.builder().piece("Q").san("Qh5#").check(true).checkmate(true).build());
+        when(moveRepository.save(any(Move.class))).thenReturn(move);
+        when(gameRepository.save(any(Game.class))).thenReturn(game);
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(playerNames);
+
+        gameService.makeMove(1L, 1L, moveRequest);
+
+        assertEquals(Game.GameStatus.COMPLETED, game.getStatus());
+        assertEquals(1L, game.getWinnerId());
+        assertNotNull(game.getCompletedAt());
+        verify(gameStateCache).evict(1L);
+        verify(eventPublisher).publishEvent(new GameCompletedEvent(1L, 1L, 2L, 1L, game.getCompletedAt()));
+        verify(messagingTemplate).convertAndSend(eq("/topic/game/1/ended"), any(GameDto.class));
+    }
+
+    @Test
+    void makeMove_ThreefoldRepetition_DrawsGame() {
+        // Knights have gone out and back twice; the position after the move has been seen twice before
+        Position repeated = Position.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 8 5");
+        game.setMoveCount(8);
+
+        assertEquals(Game.GameStatus.DRAW, playDrawingMove(repeated, 2).getStatus());
+        assertNull(game.getWinnerId());
+        verify(messagingTemplate).convertAndSend(eq("/topic/game/1/ended"), any(GameDto.class));
+    }
+
+    @Test
+    void makeMove_FiftyMoveRule_DrawsGame() {
+        Position quiet = Position.fromFen("8/8/4k3/8/8/3K4/8/7R w - - 100 80");
+        game.setMoveCount(158);
+
+        assertEquals(Game.GameStatus.DRAW, playDrawingMove(quiet, 0).getStatus());
+    }
+
+    @Test
+    void checkClock_FlagFallen_AbandonsGameForOpponent() {
+        game.setClockBaseMillis(60_000L);
+        game.setClockIncrementMillis(0L);
+        game.setWhiteClockMillis(1_000L);
+        game.setBlackClockMillis(60_000L);
+        game.setTurnStartedAt(LocalDateTime.now().minusSeconds(2));
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(gameRepository.save(any(Game.class))).thenReturn(game);
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(playerNames);
+
+        assertTrue(gameService.checkClock(1L).isEmpty());
+
+        assertEquals(Game.GameStatus.ABANDONED, game.getStatus());
+        assertEquals(2L, game.getWinnerId());
+        assertEquals(0L, game.getWhiteClockMillis());
+        verify(gameClockService).cancel(1L);
+        verify(messagingTemplate).convertAndSend(eq("/topic/game/1/timeout"), any(GameDto.class));
+    }
+
+    @Test
+    void checkClock_TimeLeft_ReturnsDeadline() {
+        game.setClockBaseMillis(60_000L);
+        game.setClockIncrementMillis(0L);
+        game.setWhiteClockMillis(30_000L);
+        game.setBlackClockMillis(60_000L);
+        game.setTurnStartedAt(LocalDateTime.now());
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+
+        assertEquals(GameClockService.deadlineOf(game), gameService.checkClock(1L).getAsLong());
+
+        assertEquals(Game.GameStatus.IN_PROGRESS, game.getStatus());
+        verify(gameRepository, never()).save(any(Game.class));
+    }
+
     @Test
     void makeMove_NotPlayerTurn_ThrowsException() {
         MoveRequest moveRequest = new MoveRequest();
@@ -157,6 +394,39 @@ class GameServiceTest {
 
         verify(moveRepository, never()).save(any());
     }
-}
 
+    /**
+     * Plays a white move whose resulting position is {@code after}, seen {@code seenBefore} times already.
+     */
+    private Game playDrawingMove(Position after, int seenBefore) {
+        MoveRequest moveRequest = new MoveRequest();
+        moveRequest.setFrom("f3");
+        moveRequest.setTo("g1");
+
+        when(gameRepository.findById(1L)).thenReturn(Optional.of(game));
+        when(gameStateCache.getWorkingCopy(1L, game.getMoveCount(), List.of())).thenReturn(after);
+        when(gameStateCache.countRepetitions(game, game.getMoveCount(), List.of(), after.hash())).thenReturn(seenBefore);
+        when(validationService.validateAndApply(any(Position.class), anyString(), anyString(), anyBoolean(), any()))
+                .thenReturn(MoveResult.builder().piece("N").san("Ng1").build());
+        when(moveRepository.save(any(Move.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(gameRepository.save(any(Game.class))).thenReturn(game);
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(playerNames);
+
+        gameService.makeMove(1L, 1L, moveRequest);
+
+        verify(gameStateCache).evict(1L);
+        return game;
+    }
 
+    private Game historyGame(Long id, Long whiteId, Long blackId, LocalDateTime createdAt) {
+        return Game.builder()
+                .id(id)
+                .whitePlayerId(whiteId)
+                .blackPlayerId(blackId)
+                .status(Game.GameStatus.COMPLETED)
+                .currentTurn(Game.PlayerColor.WHITE)
+                .moveCount(0)
+                .createdAt(createdAt)
+                .build();
+    }
+}
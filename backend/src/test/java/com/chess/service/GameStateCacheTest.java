@@ -0,0 +1,158 @@
+package com.chess.service;
+
+import com.chess.engine.Position;
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.repository.MoveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GameStateCacheTest {
+
+    @Mock
+    private MoveRepository moveRepository;
+
+    private GameStateCache gameStateCache;
+
+    private Game game;
+
+    @BeforeEach
+    void setUp() {
+        gameStateCache = new GameStateCache(moveRepository, new ChessValidationService());
+
+        game = Game.builder()
+                .id(1L)
+                .whitePlayerId(1L)
+                .blackPlayerId(2L)
+                .status(Game.GameStatus.IN_PROGRESS)
+                .currentTurn(Game.PlayerColor.WHITE)
+                .moveCount(0)
+                .build();
+    }
+
+    @Test
+    void getPosition_LoadsOnceAndAdoptsCommittedPositions() {
+        when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L)).thenReturn(new ArrayList<>());
+
+        Position resulting = gameStateCache.getPosition(game).copy();
+        new ChessValidationService().validateAndApply(resulting, "e2", "e4", true, null);
+        gameStateCache.recordMove(1L, move(1, "e2", "e4"), resulting);
+        game.setMoveCount(1);
+
+        Position updated = gameStateCache.getPosition(game);
+
+        assertSame(resulting, updated);
+        assertEquals("P", new ChessValidationService().getPieceAt(updated, "e4"));
+        verify(moveRepository, times(1)).findByGameIdOrderByMoveNumberAsc(1L);
+    }
+
+    @Test
+    void getWorkingCopy_AlternatesBetweenTwoPositions() {
+        when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L)).thenReturn(new ArrayList<>());
+        ChessValidationService validation = new ChessValidationService();
+        Position live = gameStateCache.getPosition(game);
+
+        Position first = gameStateCache.getWorkingCopy(game);
+        validation.validateAndApply(first, "e2", "e4", true, null);
+        // The live position is untouched until the move commits
+        assertNull(validation.getPieceAt(gameStateCache.getPosition(game), "e4"));
+        gameStateCache.recordMove(1L, move(1, "e2", "e4"), first);
+        game.setMoveCount(1);
+
+        Position second = gameStateCache.getWorkingCopy(game);
+        assertSame(live, second);
+        assertEquals("P", validation.getPieceAt(second, "e4"));
+        validation.validateAndApply(second, "e7", "e5", false, null);
+        gameStateCache.recordMove(1L, move(2, "e7", "e5"), second);
+        game.setMoveCount(2);
+
+        assertSame(second, gameStateCache.getPosition(game));
+        assertSame(first, gameStateCache.getWorkingCopy(game));
+    }
+
+    @Test
+    void getPosition_ReloadsWhenMoveCountDiffers() {
+        List<Move> history = List.of(move(1, "e2", "e4"));
+        when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L))
+                .thenReturn(new ArrayList<>())
+                .thenReturn(history);
+
+        gameStateCache.getPosition(game);
+        // Another writer committed a move this cache never saw
+        game.setMoveCount(1);
+
+        Position position = gameStateCache.getPosition(game);
+
+        assertEquals("P", new ChessValidationService().getPieceAt(position, "e4"));
+        verify(moveRepository, times(2)).findByGameIdOrderByMoveNumberAsc(1L);
+    }
+
+    @Test
+    void countRepetitions_TracksPositionsSinceLastPawnMove() {
+        when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L)).thenReturn(new ArrayList<>());
+        ChessValidationService validation = new ChessValidationService();
+        String[][] line = {{"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}, {"e2", "e4"}};
+
+        Position position = gameStateCache.getPosition(game).copy();
+        for (int i = 0; i < line.length; i++) {
+            if (i == 4) {
+                assertEquals(2, gameStateCache.countRepetitions(game, i, List.of(), position.hash()));
+            }
+            validation.validateAndApply(position, line[i][0], line[i][1], i % 2 == 0, null);
+            gameStateCache.recordMove(1L, move(i + 1, line[i][0], line[i][1]), position);
+            position = position.copy();
+        }
+
+        assertEquals(1, gameStateCache.countRepetitions(game, line.length, List.of(), position.hash()));
+        assertEquals(0, gameStateCache.countRepetitions(game, line.length, List.of(), Position.initial().hash()));
+        verify(moveRepository, times(1)).findByGameIdOrderByMoveNumberAsc(1L);
+    }
+
+    @Test
+    void countRepetitions_GameEvictedMeanwhile_RebuildsHistory() {
+        List<Move> history = new ArrayList<>();
+        String[][] line = {{"g1", "f3"}, {"g8", "f6"}, {"f3", "g1"}, {"f6", "g8"}};
+        for (int i = 0; i < line.length; i++) {
+            history.add(move(i + 1, line[i][0], line[i][1]));
+        }
+        when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L)).thenReturn(history);
+        game.setMoveCount(line.length);
+        Position position = gameStateCache.getWorkingCopy(game);
+
+        // Swept as idle while the move was being validated
+        gameStateCache.evictWhere(gameId -> true);
+
+        assertEquals(2, gameStateCache.countRepetitions(game, line.length, List.of(), position.hash()));
+    }
+
+    @Test
+    void evict_DropsCachedPosition() {
+        when(moveRepository.findByGameIdOrderByMoveNumberAsc(1L)).thenReturn(new ArrayList<>());
+
+        gameStateCache.getPosition(game);
+        gameStateCache.evict(1L);
+
+        assertEquals(0, gameStateCache.size());
+    }
+
+    private Move move(int moveNumber, String from, String to) {
+        return Move.builder()
+                .gameId(1L)
+                .moveNumber(moveNumber)
+                .fromSquare(from)
+                .toSquare(to)
+                .piece("P")
+                .san(to)
+                .build();
+    }
+}
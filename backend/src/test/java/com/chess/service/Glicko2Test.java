@@ -0,0 +1,36 @@
+package com.chess.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Glicko2Test {
+
+    private final Glicko2 glicko = new Glicko2(0.5);
+
+    @Test
+    void update_MatchesGlickmanExample() {
+        Glicko2.Rating player = new Glicko2.Rating(1500, 200, 0.06);
+        Glicko2.Rating[] opponents = {
+            new Glicko2.Rating(1400, 30, 0.06),
+            new Glicko2.Rating(1550, 100, 0.06),
+            new Glicko2.Rating(1700, 300, 0.06)
+        };
+
+        Glicko2.Rating updated = glicko.update(player, opponents, new double[]{1, 0, 0});
+
+        assertEquals(1464.06, updated.rating(), 0.01);
+        assertEquals(151.52, updated.deviation(), 0.01);
+        assertEquals(0.05999, updated.volatility(), 0.00001);
+    }
+
+    @Test
+    void update_DrawBetweenEqualPlayersOnlyShrinksDeviation() {
+        Glicko2.Rating player = new Glicko2.Rating(1500, 350, 0.06);
+
+        Glicko2.Rating updated = glicko.update(player, player, 0.5);
+
+        assertEquals(1500, updated.rating(), 1e-9);
+        assertTrue(updated.deviation() < 350);
+    }
+}
@@ -0,0 +1,44 @@
+package com.chess.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+
+    private static final int GAMES = 10_000;
+
+    @Test
+    void ownerOf_SpreadsGamesEvenly() {
+        HashRing ring = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long gameId = 1; gameId <= GAMES; gameId++) {
+            counts.merge(ring.ownerOf(gameId), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        counts.values().forEach(count -> assertTrue(count > GAMES / 4 * 0.75 && count < GAMES / 4 * 1.25,
+                "unbalanced: " + counts));
+    }
+
+    @Test
+    void ownerOf_AddingNodeOnlyMovesGamesToIt() {
+        HashRing before = new HashRing(List.of("node-a", "node-b", "node-c"), 128);
+        HashRing after = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+
+        int moved = 0;
+        for (long gameId = 1; gameId <= GAMES; gameId++) {
+            String owner = after.ownerOf(gameId);
+            if (!owner.equals(before.ownerOf(gameId))) {
+                assertEquals("node-d", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > GAMES / 4 * 0.75 && moved < GAMES / 4 * 1.25, "moved " + moved);
+    }
+}
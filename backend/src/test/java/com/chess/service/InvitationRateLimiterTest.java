@@ -0,0 +1,28 @@
+package com.chess.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvitationRateLimiterTest {
+
+    @Test
+    void tryAcquire_AllowsBurstThenRefillsOverTime() throws InterruptedException {
+        InvitationRateLimiter limiter = new InvitationRateLimiter(3, 50);
+
+        assertTrue(limiter.tryAcquire(1L));
+        assertTrue(limiter.tryAcquire(1L));
+        assertTrue(limiter.tryAcquire(1L));
+        assertFalse(limiter.tryAcquire(1L));
+        // Other users have their own bucket
+        assertTrue(limiter.tryAcquire(2L));
+
+        Thread.sleep(60);
+        assertTrue(limiter.tryAcquire(1L));
+        assertFalse(limiter.tryAcquire(1L));
+
+        Thread.sleep(200);
+        limiter.evictFullBuckets();
+        assertEquals(0, limiter.size());
+    }
+}
@@ -0,0 +1,92 @@
+package com.chess.service;
+
+import com.chess.dto.InvitationDto;
+import com.chess.model.Invitation;
+import com.chess.model.Invitation.InvitationStatus;
+import com.chess.repository.InvitationRepository;
+import com.chess.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvitationServiceTest {
+
+    @Mock
+    private InvitationRepository invitationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private DisplayNameService displayNameService;
+
+    @Mock
+    private GameService gameService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private InvitationService invitationService;
+
+    @BeforeEach
+    void setUp() {
+        invitationService = new InvitationService(invitationRepository, userRepository, displayNameService,
+                gameService, messagingTemplate, new InvitationRateLimiter(2, 60_000));
+        ReflectionTestUtils.setField(invitationService, "ttlMillis", 300_000L);
+    }
+
+    @Test
+    void sendInvitation_PendingPairExists_ReturnsItWithoutWriting() {
+        Invitation pending = Invitation.builder()
+                .id(9L)
+                .fromUserId(1L)
+                .toUserId(2L)
+                .status(InvitationStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(invitationRepository.findFirstByFromUserIdAndToUserIdAndStatusAndCreatedAtAfter(
+                eq(1L), eq(2L), eq(InvitationStatus.PENDING), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(pending));
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(Map.of(1L, "Alice", 2L, "Bob"));
+
+        InvitationDto dto = invitationService.sendInvitation(1L, 2L);
+
+        assertEquals(9L, dto.getId());
+        verify(invitationRepository, never()).save(any());
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any(Object.class));
+    }
+
+    @Test
+    void sendInvitation_BurstSpent_RejectsWithoutTouchingDatabase() {
+        when(invitationRepository.findFirstByFromUserIdAndToUserIdAndStatusAndCreatedAtAfter(
+                anyLong(), anyLong(), any(), any())).thenReturn(Optional.empty());
+        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        // Each attempt spends a token even when it fails later on
+        assertThrows(IllegalArgumentException.class, () -> invitationService.sendInvitation(1L, 2L));
+        assertThrows(IllegalArgumentException.class, () -> invitationService.sendInvitation(1L, 3L));
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> invitationService.sendInvitation(1L, 4L));
+
+        assertTrue(ex.getMessage().startsWith("Too many invitations"));
+        verify(userRepository, times(2)).findById(anyLong());
+        verifyNoMoreInteractions(userRepository);
+    }
+}
@@ -0,0 +1,135 @@
+package com.chess.service;
+
+import com.chess.dto.InvitationDto;
+import com.chess.model.Invitation;
+import com.chess.model.Invitation.InvitationStatus;
+import com.chess.model.User;
+import com.chess.repository.InvitationRepository;
+import com.chess.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvitationSweeperTest {
+
+    @Mock
+    private InvitationRepository invitationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private DisplayNameService displayNameService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InvitationSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new InvitationSweeper(invitationRepository, userRepository, displayNameService,
+                messagingTemplate, transactionManager, 60_000, 2);
+    }
+
+    @Test
+    void expireInvitations_ExpiresInBatchesAndNotifiesBothPlayers() {
+        List<Invitation> stale = LongStream.rangeClosed(1, 3).mapToObj(this::invitation).toList();
+        when(invitationRepository.findByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(
+                eq(InvitationStatus.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(stale.subList(0, 2))
+                .thenReturn(stale.subList(2, 3));
+        when(invitationRepository.updateStatus(anyCollection(), eq(InvitationStatus.PENDING),
+                eq(InvitationStatus.EXPIRED), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of(
+                User.builder().id(1L).email("alice@example.com").build(),
+                User.builder().id(2L).email("bob@example.com").build()));
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(Map.of(1L, "Alice", 2L, "Bob"));
+
+        assertEquals(3, sweeper.expireInvitations());
+
+        verify(invitationRepository).updateStatus(eq(List.of(1L, 2L)), eq(InvitationStatus.PENDING),
+                eq(InvitationStatus.EXPIRED), any(LocalDateTime.class));
+        verify(invitationRepository).updateStatus(eq(List.of(3L)), eq(InvitationStatus.PENDING),
+                eq(InvitationStatus.EXPIRED), any(LocalDateTime.class));
+        verify(messagingTemplate, times(3)).convertAndSendToUser(eq("alice@example.com"),
+                eq(InvitationSweeper.EXPIRED_QUEUE), any(Object.class));
+        verify(messagingTemplate, times(3)).convertAndSendToUser(eq("bob@example.com"),
+                eq(InvitationSweeper.EXPIRED_QUEUE), any(Object.class));
+        verify(invitationRepository, never()).findIdsByStatusAndRespondedAt(anyCollection(), any(), any());
+    }
+
+    @Test
+    void expireInvitations_AnsweredAfterRead_NotifiesOnlyExpired() {
+        List<Invitation> stale = LongStream.rangeClosed(1, 2).mapToObj(this::invitation).toList();
+        when(invitationRepository.findByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(
+                eq(InvitationStatus.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(stale)
+                .thenReturn(List.of());
+        // Invitation 1 was accepted between the read and the UPDATE, so only 2 changes
+        when(invitationRepository.updateStatus(eq(List.of(1L, 2L)), eq(InvitationStatus.PENDING),
+                eq(InvitationStatus.EXPIRED), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(invitationRepository.findIdsByStatusAndRespondedAt(eq(List.of(1L, 2L)), eq(InvitationStatus.EXPIRED),
+                argThat(respondedAt -> respondedAt.getNano() % 1_000 == 0)))
+                .thenReturn(List.of(2L));
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of(
+                User.builder().id(1L).email("alice@example.com").build(),
+                User.builder().id(2L).email("bob@example.com").build()));
+        when(displayNameService.getDisplayNames(anyCollection())).thenReturn(Map.of(1L, "Alice", 2L, "Bob"));
+
+        // A full batch was read, so the sweep reads once more and finds nothing left
+        assertEquals(1, sweeper.expireInvitations());
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("alice@example.com"),
+                eq(InvitationSweeper.EXPIRED_QUEUE), sent.capture());
+        verify(messagingTemplate).convertAndSendToUser(eq("bob@example.com"),
+                eq(InvitationSweeper.EXPIRED_QUEUE), any(Object.class));
+        assertEquals(2L, ((InvitationDto) sent.getValue()).getId());
+    }
+
+    @Test
+    void expireInvitations_NothingStale_WritesNothing() {
+        when(invitationRepository.findByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(
+                eq(InvitationStatus.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        assertEquals(0, sweeper.expireInvitations());
+
+        verify(invitationRepository, never()).updateStatus(anyCollection(), any(), any(), any());
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    private Invitation invitation(long id) {
+        return Invitation.builder()
+                .id(id)
+                .fromUserId(1L)
+                .toUserId(2L)
+                .status(InvitationStatus.PENDING)
+                .createdAt(LocalDateTime.now().minusMinutes(10))
+                .build();
+    }
+}
@@ -0,0 +1,258 @@
+package com.chess.service;
+
+import com.chess.dto.ErrorResponse;
+import com.chess.dto.GameDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MatchmakingServiceTest {
+
+    private static final TimeControl BLITZ = new TimeControl(300_000, 2_000);
+
+    private final Map<Long, Integer> ratings = new ConcurrentHashMap<>();
+    private final Queue<Long[]> games = new ConcurrentLinkedQueue<>();
+    private final AtomicLong gameIds = new AtomicLong();
+
+    private GameService gameService;
+    private SimpMessagingTemplate messagingTemplate;
+    private MatchmakingService matchmakingService;
+
+    @BeforeEach
+    void setUp() {
+        RatingService ratingService = mock(RatingService.class);
+        when(ratingService.getRating(anyLong())).thenAnswer(invocation -> ratings.get(invocation.<Long>getArgument(0)));
+        PresenceRegistry presenceRegistry = mock(PresenceRegistry.class);
+        when(presenceRegistry.isOnline(anyLong())).thenReturn(true);
+
+        gameService = mock(GameService.class);
+        when(gameService.createGames(anyList())).thenAnswer(invocation -> createGames(invocation.getArgument(0)));
+
+        GameClockService gameClockService = mock(GameClockService.class);
+        when(gameClockService.defaultTimeControl()).thenReturn(TimeControl.UNTIMED);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+
+        matchmakingService = new MatchmakingService(ratingService, gameService, gameClockService, presenceRegistry,
+                messagingTemplate, List.of("300000+2000"), 100, 50, 5_000, 500, 2);
+    }
+
+    @Test
+    void pairPlayers_WidensBandWhileWaiting() {
+        ratings.put(1L, 1500);
+        ratings.put(2L, 1700);
+        matchmakingService.join(1L, email(1L), BLITZ);
+        matchmakingService.join(2L, email(2L), BLITZ);
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, matchmakingService.pairPlayers(now));
+        // Two steps later the band is 200 points
+        assertEquals(1, matchmakingService.pairPlayers(now + 10_000));
+
+        verify(gameService).createGames(List.of(new Pairing(1L, 2L, BLITZ)));
+        assertEquals(0, matchmakingService.queuedPlayers());
+    }
+
+    @Test
+    void pairPlayers_MatchesClosestRatingWithinSameTimeControl() {
+        ratings.put(1L, 1500);
+        ratings.put(2L, 1580);
+        ratings.put(3L, 1530);
+        ratings.put(4L, 1500);
+        matchmakingService.join(1L, email(1L), BLITZ);
+        matchmakingService.join(2L, email(2L), BLITZ);
+        matchmakingService.join(3L, email(3L), BLITZ);
+        matchmakingService.join(4L, email(4L), TimeControl.UNTIMED);
+
+        assertEquals(1, matchmakingService.pairPlayers(System.currentTimeMillis()));
+
+        verify(gameService).createGames(List.of(new Pairing(1L, 3L, BLITZ)));
+        assertTrue(matchmakingService.isQueued(2L));
+        assertTrue(matchmakingService.isQueued(4L));
+    }
+
+    @Test
+    void pairPlayers_BatchFails_StartsItsGamesOneByOne() {
+        ratings.put(1L, 1500);
+        ratings.put(2L, 1500);
+        ratings.put(3L, 1900);
+        ratings.put(4L, 1900);
+        for (long id = 1; id <= 4; id++) {
+            matchmakingService.join(id, email(id), BLITZ);
+        }
+        when(gameService.createGames(anyList())).thenAnswer(invocation -> {
+            List<Pairing> pairings = invocation.getArgument(0);
+            if (pairings.stream().anyMatch(pairing -> pairing.firstPlayerId() == 3L)) {
+                throw new IllegalStateException("Player 3 cannot play");
+            }
+            return createGames(pairings);
+        });
+
+        assertEquals(1, matchmakingService.pairPlayers(System.currentTimeMillis()));
+
+        verify(gameService, times(3)).createGames(anyList());
+        assertEquals(1, games.size());
+        assertArrayEquals(new Long[]{1L, 2L}, games.peek());
+        // The pair that failed waits for the next pass
+        assertTrue(matchmakingService.isQueued(3L));
+        assertTrue(matchmakingService.isQueued(4L));
+    }
+
+    @Test
+    void pairPlayers_GameKeepsFailing_ToldAndDroppedFromQueue() {
+        ratings.put(1L, 1500);
+        ratings.put(2L, 1500);
+        matchmakingService.join(1L, email(1L), BLITZ);
+        matchmakingService.join(2L, email(2L), BLITZ);
+        when(gameService.createGames(anyList())).thenThrow(new IllegalStateException("Database down"));
+
+        for (int attempt = 1; attempt < MatchmakingService.MAX_START_ATTEMPTS; attempt++) {
+            assertEquals(0, matchmakingService.pairPlayers(System.currentTimeMillis()));
+            assertEquals(2, matchmakingService.queuedPlayers());
+        }
+        verifyNoInteractions(messagingTemplate);
+
+        assertEquals(0, matchmakingService.pairPlayers(System.currentTimeMillis()));
+
+        assertEquals(0, matchmakingService.queuedPlayers());
+        verify(gameService, times(MatchmakingService.MAX_START_ATTEMPTS)).createGames(anyList());
+        verify(messagingTemplate).convertAndSendToUser(eq(email(1L)), eq(MatchmakingService.ERRORS_QUEUE), any(ErrorResponse.class));
+        verify(messagingTemplate).convertAndSendToUser(eq(email(2L)), eq(MatchmakingService.ERRORS_QUEUE), any(ErrorResponse.class));
+    }
+
+    @Test
+    void join_TimeControlNotOffered_Rejected() {
+        ratings.put(1L, 1500);
+
+        assertTrue(matchmakingService.offers(BLITZ));
+        assertTrue(matchmakingService.offers(TimeControl.UNTIMED));
+        assertFalse(matchmakingService.offers(new TimeControl(1, 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> matchmakingService.join(1L, email(1L), new TimeControl(1, 0)));
+        assertFalse(matchmakingService.isQueued(1L));
+    }
+
+    @Test
+    void join_GameInProgress_Rejected() {
+        ratings.put(1L, 1500);
+        when(gameService.hasActiveGame(1L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> matchmakingService.join(1L, email(1L), BLITZ));
+        assertFalse(matchmakingService.isQueued(1L));
+    }
+
+    @Test
+    void leave_PlayerIsNeverMatched() {
+        ratings.put(1L, 1500);
+        ratings.put(2L, 1500);
+        matchmakingService.join(1L, email(1L), BLITZ);
+        matchmakingService.join(2L, email(2L), BLITZ);
+        assertFalse(matchmakingService.join(2L, email(2L), BLITZ));
+
+        assertTrue(matchmakingService.leave(2L));
+        assertFalse(matchmakingService.leave(2L));
+
+        assertEquals(0, matchmakingService.pairPlayers(System.currentTimeMillis()));
+        verify(gameService, never()).createGames(anyList());
+    }
+
+    @Test
+    void join_UnderConcurrentLoad_PairsEveryPlayerAtMostOnce() throws Exception {
+        int threads = 8;
+        int playersPerThread = 2_000;
+        for (long id = 1; id <= threads * playersPerThread; id++) {
+            ratings.put(id, 1300 + (int) (id * 7919 % 400));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean joining = new AtomicBoolean(true);
+        Set<Long> left = ConcurrentHashMap.newKeySet();
+        try {
+            // Pairing runs continuously while players join and some leave again
+            Future<?> pairing = executor.submit(() -> {
+                start.await();
+                while (joining.get()) {
+                    matchmakingService.pairPlayers(System.currentTimeMillis());
+                }
+                return null;
+            });
+            List<Future<?>> joiners = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long first = (long) t * playersPerThread + 1;
+                joiners.add(executor.submit(() -> {
+                    start.await();
+                    for (long id = first; id < first + playersPerThread; id++) {
+                        assertTrue(matchmakingService.join(id, email(id), BLITZ));
+                        if (id % 10 == 0 && matchmakingService.leave(id)) {
+                            left.add(id);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> joiner : joiners) {
+                joiner.get(30, TimeUnit.SECONDS);
+            }
+            joining.set(false);
+            pairing.get(30, TimeUnit.SECONDS);
+        } finally {
+            joining.set(false);
+            executor.shutdownNow();
+        }
+
+        // Everyone still waiting is within the widest band of everyone else
+        matchmakingService.pairPlayers(System.currentTimeMillis() + 60_000);
+
+        Map<Long, Integer> gamesPerPlayer = new HashMap<>();
+        for (Long[] game : games) {
+            assertNotEquals(game[0], game[1]);
+            gamesPerPlayer.merge(game[0], 1, Integer::sum);
+            gamesPerPlayer.merge(game[1], 1, Integer::sum);
+        }
+        assertTrue(gamesPerPlayer.values().stream().allMatch(count -> count == 1));
+        Set<Long> matchedAfterLeaving = new HashSet<>(gamesPerPlayer.keySet());
+        matchedAfterLeaving.retainAll(left);
+        assertTrue(matchedAfterLeaving.isEmpty());
+
+        int waiting = ratings.size() - left.size() - gamesPerPlayer.size();
+        assertEquals(waiting, matchmakingService.queuedPlayers());
+        assertTrue(waiting <= 1);
+    }
+
+    private List<GameDto> createGames(List<Pairing> pairings) {
+        return pairings.stream()
+                .map(pairing -> {
+                    games.add(new Long[]{pairing.firstPlayerId(), pairing.secondPlayerId()});
+                    return GameDto.builder().id(gameIds.incrementAndGet()).build();
+                })
+                .toList();
+    }
+
+    private static String email(long userId) {
+        return "user" + userId + "@example.com";
+    }
+}
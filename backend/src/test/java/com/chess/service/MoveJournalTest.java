@@ -0,0 +1,132 @@
+package com.chess.service;
+
+import com.chess.model.Game;
+import com.chess.model.Move;
+import com.chess.repository.GameRepository;
+import com.chess.repository.MoveRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MoveJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private MoveRepository moveRepository;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<MoveJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (MoveJournal journal : journals) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void append_IsPendingUntilFlushedInOneBatch() throws Exception {
+        MoveJournal journal = open();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> appends = new ArrayList<>();
+            for (int ply = 1; ply <= 4; ply++) {
+                Move move = move(ply);
+                appends.add(executor.submit(() -> journal.append(move)));
+            }
+            for (Future<?> append : appends) {
+                append.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(4, journal.pendingMoves(1L).size());
+        verifyNoInteractions(moveRepository);
+
+        journal.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Move>> saved = ArgumentCaptor.forClass(List.class);
+        verify(moveRepository).insertAll(saved.capture());
+        assertEquals(4, saved.getValue().size());
+        assertTrue(journal.pendingMoves(1L).isEmpty());
+        verify(gameRepository).advanceMoveCount(1L, 4, Game.PlayerColor.WHITE);
+        verify(gameRepository, never()).save(any());
+    }
+
+    @Test
+    void start_ReplaysMovesMissingFromDatabaseAndDropsTornTail() throws Exception {
+        MoveJournal crashed = open();
+        crashed.append(move(1));
+        crashed.append(move(2));
+        crashed.append(move(3));
+        // Crash: nothing was flushed, and the last write was cut short
+        Files.write(dir.resolve("moves.log"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        when(moveRepository.existsByGameIdAndMoveNumber(1L, 1)).thenReturn(true);
+        when(moveRepository.existsByGameIdAndMoveNumber(1L, 2)).thenReturn(false);
+        when(moveRepository.existsByGameIdAndMoveNumber(1L, 3)).thenReturn(false);
+
+        MoveJournal restarted = open();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Move>> saved = ArgumentCaptor.forClass(List.class);
+        verify(moveRepository).insertAll(saved.capture());
+        assertEquals(List.of(2, 3), saved.getValue().stream().map(Move::getMoveNumber).toList());
+        assertEquals("e7", saved.getValue().get(0).getFromSquare());
+        assertTrue(restarted.pendingMoves(1L).isEmpty());
+        verify(gameRepository).advanceMoveCount(1L, 3, Game.PlayerColor.BLACK);
+        verify(moveRepository, times(3)).existsByGameIdAndMoveNumber(anyLong(), anyInt());
+    }
+
+    private MoveJournal open() throws Exception {
+        MoveJournal journal = new MoveJournal(moveRepository, gameRepository, transactionManager,
+                true, dir.resolve("moves.log").toString(), 500, 1024 * 1024);
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    private static Move move(int ply) {
+        boolean white = ply % 2 == 1;
+        return Move.builder()
+                .gameId(1L)
+                .playerId(white ? 1L : 2L)
+                .fromSquare(white ? "e2" : "e7")
+                .toSquare(white ? "e4" : "e5")
+                .piece("P")
+                .san(white ? "e4" : "e5")
+                .moveNumber(ply)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
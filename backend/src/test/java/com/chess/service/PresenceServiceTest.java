@@ -0,0 +1,164 @@
+package com.chess.service;
+
+import com.chess.config.BrokerBus;
+import com.chess.config.InProcessBrokerBus;
+import com.chess.dto.PresenceEvent;
+import com.chess.dto.PresenceSnapshot;
+import com.chess.dto.UserDto;
+import com.chess.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceServiceTest {
+
+    @Mock
+    private DisplayNameService displayNameService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private PresenceService presenceService;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        presenceService = node(membership("node-a", beans), beans, messagingTemplate);
+    }
+
+    private static ClusterMembership membership(String nodeId, StaticListableBeanFactory beans) {
+        return new ClusterMembership(nodeId, beans.getBeanProvider(BrokerBus.class), 64, 5000);
+    }
+
+    private PresenceService node(ClusterMembership membership, StaticListableBeanFactory beans,
+                                 SimpMessagingTemplate template) {
+        PresenceService node = new PresenceService(new PresenceRegistry(), displayNameService, userRepository, template,
+                membership, beans.getBeanProvider(BrokerBus.class), new ObjectMapper().findAndRegisterModules());
+        node.init();
+        membership.join();
+        return node;
+    }
+
+    @Test
+    void sessions_PublishOneDeltaPerOnlineStateChange() {
+        when(displayNameService.getDisplayName(1L)).thenReturn("Test User");
+
+        // Two tabs: the user comes online once and only goes offline when the last tab closes
+        presenceService.userConnected(1L, "test@example.com", "s1");
+        presenceService.userConnected(1L, "test@example.com", "s2");
+        presenceService.flushPresenceChanges();
+        presenceService.sessionClosed("s1");
+        presenceService.flushPresenceChanges();
+        assertTrue(presenceService.isOnline(1L));
+        presenceService.sessionClosed("s2");
+        presenceService.sessionClosed("s2");
+        presenceService.flushPresenceChanges();
+
+        ArgumentCaptor<PresenceEvent> events = ArgumentCaptor.forClass(PresenceEvent.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/presence"), events.capture());
+        assertEquals(PresenceEvent.Type.JOINED, events.getAllValues().get(0).getType());
+        assertEquals("Test User", events.getAllValues().get(0).getUser().getDisplayName());
+        assertEquals(1L, events.getAllValues().get(0).getSequence());
+        assertEquals(PresenceEvent.Type.LEFT, events.getAllValues().get(1).getType());
+        assertEquals(2L, events.getAllValues().get(1).getSequence());
+        assertFalse(presenceService.isOnline(1L));
+    }
+
+    @Test
+    void flushPresenceChanges_CoalescesReconnectWithinWindow() {
+        when(displayNameService.getDisplayName(1L)).thenReturn("Test User");
+        presenceService.userConnected(1L, "test@example.com", "s1");
+        presenceService.flushPresenceChanges();
+
+        presenceService.sessionClosed("s1");
+        presenceService.userConnected(1L, "test@example.com", "s2");
+        presenceService.flushPresenceChanges();
+
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/presence"), any(Object.class));
+        PresenceSnapshot snapshot = presenceService.getSnapshot();
+        assertEquals(1L, snapshot.getNodes().get(presenceService.getPresenceId()).getSequence());
+        assertEquals(1, snapshot.getUsers().size());
+    }
+
+    @Test
+    void twoNodes_ShareUsersAndDropThemWhenNodeLeaves() {
+        when(displayNameService.getDisplayName(anyLong())).thenAnswer(invocation -> "User " + invocation.getArgument(0));
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("brokerBus", new InProcessBrokerBus());
+        SimpMessagingTemplate templateA = mock(SimpMessagingTemplate.class);
+        SimpMessagingTemplate templateB = mock(SimpMessagingTemplate.class);
+        PresenceService nodeA = node(membership("node-a", beans), beans, templateA);
+
+        // Node B learns about users that were online before it started
+        nodeA.userConnected(1L, "one@example.com", "s1");
+        nodeA.flushPresenceChanges();
+        ClusterMembership membershipB = membership("node-b", beans);
+        PresenceService nodeB = node(membershipB, beans, templateB);
+        assertEquals(List.of(1L), userIds(nodeB.getSnapshot()));
+
+        // and about later changes on node A, and node A about changes on node B
+        nodeA.userConnected(2L, "two@example.com", "s2");
+        nodeA.flushPresenceChanges();
+        nodeB.userConnected(3L, "three@example.com", "s3");
+        nodeB.flushPresenceChanges();
+        assertEquals(List.of(1L, 2L, 3L), userIds(nodeA.getSnapshot()));
+        assertEquals(List.of(1L, 2L, 3L), userIds(nodeB.getSnapshot()));
+        // The REST lobby list shows the same users as the snapshot
+        assertEquals(List.of(1L, 2L, 3L), nodeA.getOnlineUsers().stream().map(UserDto::getId).sorted().toList());
+        PresenceSnapshot.Node aSeenByB = nodeB.getSnapshot().getNodes().get(nodeA.getPresenceId());
+        assertEquals(2L, aSeenByB.getSequence());
+
+        nodeA.sessionClosed("s1");
+        nodeA.flushPresenceChanges();
+        assertEquals(List.of(2L, 3L), userIds(nodeB.getSnapshot()));
+
+        // Node B goes away: node A forgets its users and tells its clients
+        membershipB.leave();
+        assertEquals(List.of(2L), userIds(nodeA.getSnapshot()));
+        ArgumentCaptor<PresenceEvent> events = ArgumentCaptor.forClass(PresenceEvent.class);
+        verify(templateA, atLeastOnce()).convertAndSend(eq("/topic/presence"), events.capture());
+        PresenceEvent last = events.getAllValues().get(events.getAllValues().size() - 1);
+        assertEquals(PresenceEvent.Type.NODE_DOWN, last.getType());
+        assertEquals(nodeB.getPresenceId(), last.getNode());
+    }
+
+    private static List<Long> userIds(PresenceSnapshot snapshot) {
+        return snapshot.getUsers().stream().map(UserDto::getId).sorted().toList();
+    }
+
+    @Test
+    void flushLastSeen_WritesPendingUsersInBulk() {
+        presenceService.markUserOnline(1L);
+        presenceService.markUserOnline(2L);
+
+        presenceService.flushLastSeen();
+        presenceService.flushLastSeen();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(userRepository, atMost(2)).updateLastSeen(ids.capture(), any(LocalDateTime.class));
+        assertEquals(2, ids.getAllValues().stream().mapToInt(Collection::size).sum());
+        verify(userRepository, never()).save(any());
+    }
+}
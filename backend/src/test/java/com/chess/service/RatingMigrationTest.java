@@ -0,0 +1,62 @@
+package com.chess.service;
+
+import com.chess.repository.GameRepository;
+import com.chess.repository.GameRepository.ResultView;
+import com.chess.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(RatingMigration.class)
+@TestPropertySource(properties = "spring.sql.init.mode=never")
+class RatingMigrationTest {
+
+    @Autowired
+    private RatingMigration ratingMigration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Test
+    void migrate_FillsExactRatingOfOldUsers() {
+        // A user rated before exact ratings were stored
+        jdbcTemplate.update("INSERT INTO users (id, email, password_hash, display_name, created_at, online, rating) " +
+                "VALUES (1000, 'old@example.com', 'x', 'Old', CURRENT_TIMESTAMP, FALSE, 1620)");
+
+        ratingMigration.migrate();
+
+        assertEquals(1620.0, userRepository.findById(1000L).orElseThrow().getExactRating());
+    }
+
+    @Test
+    void migrate_CountsGamesThatEndedBeforeAsRated() {
+        // Games written before the rated column existed
+        jdbcTemplate.update("INSERT INTO users (id, email, password_hash, display_name, created_at, online) " +
+                "VALUES (1000, 'old@example.com', 'x', 'Old', CURRENT_TIMESTAMP, FALSE)");
+        jdbcTemplate.update("INSERT INTO games (id, white_player_id, black_player_id, status, created_at, completed_at, " +
+                "move_count, current_turn, version) VALUES (700, 1000, 1000, 'COMPLETED', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0, 'WHITE', 0)");
+        jdbcTemplate.update("INSERT INTO games (id, white_player_id, black_player_id, status, created_at, " +
+                "move_count, current_turn, version) VALUES (701, 1000, 1000, 'IN_PROGRESS', CURRENT_TIMESTAMP, 0, 'WHITE', 0)");
+
+        ratingMigration.migrate();
+
+        assertEquals(List.of(700L), gameRepository.findRatedResultsSince(LocalDateTime.now().minusDays(1)).stream()
+                .map(ResultView::getId).toList());
+        assertEquals(List.of(701L), gameRepository.findUnratedIds(List.of(700L, 701L)));
+    }
+}
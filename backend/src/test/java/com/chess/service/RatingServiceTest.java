@@ -0,0 +1,237 @@
+package com.chess.service;
+
+import com.chess.model.User;
+import com.chess.repository.GameRepository;
+import com.chess.repository.GameRepository.ResultView;
+import com.chess.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RatingServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RatingService ratingService;
+
+    // The games whose rated flag is set in the database
+    private final Set<Long> ratedGames = new HashSet<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ratingService = new RatingService(userRepository, gameRepository, transactionManager, 0.5, 500, 2, false, 100);
+        lenient().when(gameRepository.findUnratedIds(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().filter(id -> !ratedGames.contains(id)).toList());
+        lenient().when(gameRepository.markRated(anyCollection())).thenAnswer(invocation -> {
+            ratedGames.addAll(invocation.<Collection<Long>>getArgument(0));
+            return 0;
+        });
+    }
+
+    @Test
+    void applyPendingResults_RatesQueuedGamesInOneBatch() {
+        User alice = User.builder().id(1L).build();
+        User bob = User.builder().id(2L).build();
+        when(userRepository.findRatingsForUpdate(anyCollection())).thenReturn(List.of(alice, bob));
+        LocalDateTime now = LocalDateTime.now();
+        ratingService.onGameCompleted(new GameCompletedEvent(10L, 1L, 2L, 1L, now));
+        ratingService.onGameCompleted(new GameCompletedEvent(11L, 2L, 1L, null, now));
+
+        assertEquals(2, ratingService.applyPendingResults());
+
+        // A win, then a draw against a player now rated lower
+        assertTrue(alice.getRating() > User.INITIAL_RATING);
+        assertTrue(bob.getRating() < User.INITIAL_RATING);
+        assertTrue(alice.getRatingDeviation() < User.INITIAL_RATING_DEVIATION);
+        verify(userRepository, times(1)).findRatingsForUpdate(anyCollection());
+        verify(userRepository).updateRatings(argThat(users -> users.size() == 2));
+        assertEquals(Set.of(10L, 11L), ratedGames);
+        assertEquals(0, ratingService.pendingResults());
+    }
+
+    @Test
+    void applyPendingResults_StoreFails_RetriesBatchOnNextFlush() {
+        when(userRepository.findRatingsForUpdate(anyCollection())).thenAnswer(invocation -> List.of(
+                User.builder().id(1L).build(), User.builder().id(2L).build()));
+        doThrow(new IllegalStateException("Database down")).doNothing()
+                .when(userRepository).updateRatings(anyCollection());
+        ratingService.onGameCompleted(new GameCompletedEvent(10L, 1L, 2L, 1L, LocalDateTime.now()));
+        ratingService.onGameCompleted(new GameCompletedEvent(11L, 2L, 1L, null, LocalDateTime.now()));
+
+        assertEquals(0, ratingService.applyPendingResults());
+        assertEquals(2, ratingService.pendingResults());
+
+        assertEquals(2, ratingService.applyPendingResults());
+        assertEquals(0, ratingService.pendingResults());
+        assertTrue(ratingService.getRating(1L) > User.INITIAL_RATING);
+    }
+
+    @Test
+    void getRating_QueriesOnceAndFollowsFlushes() {
+        when(userRepository.findRatingById(1L)).thenReturn(Optional.of(User.INITIAL_RATING));
+        when(userRepository.findRatingsForUpdate(anyCollection())).thenReturn(List.of(
+                User.builder().id(1L).build(), User.builder().id(2L).build()));
+
+        assertEquals(User.INITIAL_RATING, ratingService.getRating(1L));
+        assertEquals(User.INITIAL_RATING, ratingService.getRating(1L));
+        ratingService.onGameCompleted(new GameCompletedEvent(10L, 1L, 2L, 1L, LocalDateTime.now()));
+        ratingService.applyPendingResults();
+
+        assertTrue(ratingService.getRating(1L) > User.INITIAL_RATING);
+        assertTrue(ratingService.getRating(2L) < User.INITIAL_RATING);
+        verify(userRepository, times(1)).findRatingById(anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recomputeAll_ReplaysGamesPageByPage() {
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        ResultView first = result(1L, 1L, 2L, 1L, start);
+        ResultView second = result(2L, 2L, 3L, 2L, start.plusMinutes(1));
+        ResultView third = result(3L, 3L, 1L, null, LocalDateTime.now());
+        when(gameRepository.findResults(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(gameRepository.findResultsAfter(eq(second.getCompletedAt()), eq(2L), any(LocalDateTime.class),
+                any(Pageable.class))).thenReturn(List.of(third));
+        // Committed before the replay started, so the replay counts it
+        ratingService.onGameCompleted(new GameCompletedEvent(1L, 1L, 2L, 1L, first.getCompletedAt()));
+
+        assertEquals(3, ratingService.recomputeAll());
+
+        verify(userRepository).resetRatings(anyInt(), anyDouble(), anyDouble(), anyDouble());
+        ArgumentCaptor<Collection<User>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(userRepository).updateRatings(captor.capture());
+        Map<Long, Integer> ratings = captor.getValue().stream()
+                .collect(Collectors.toMap(User::getId, User::getRating));
+        assertEquals(3, ratings.size());
+        assertTrue(ratings.get(2L) > User.INITIAL_RATING);
+        assertEquals(0, ratingService.pendingResults());
+
+        verify(gameRepository).markRatedBefore(any(LocalDateTime.class));
+        assertEquals(Set.of(3L), ratedGames);
+
+        // A result the replay already counted is not rated again
+        ratingService.onGameCompleted(new GameCompletedEvent(3L, 3L, 1L, null, third.getCompletedAt()));
+        assertEquals(0, ratingService.applyPendingResults());
+        verify(userRepository, times(1)).updateRatings(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recomputeAll_GameRatedElsewhereDuringReplay_IsKept() {
+        LocalDateTime now = LocalDateTime.now();
+        ResultView replayed = result(1L, 1L, 2L, 1L, now.minusSeconds(2));
+        ResultView ratedMeanwhile = result(2L, 3L, 1L, 3L, now.minusSeconds(1));
+        when(gameRepository.findResults(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(replayed));
+        // Another node's flush committed it after the replay read its page
+        when(gameRepository.findRatedResultsSince(any(LocalDateTime.class)))
+                .thenReturn(List.of(replayed, ratedMeanwhile));
+
+        assertEquals(1, ratingService.recomputeAll());
+
+        ArgumentCaptor<Collection<User>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(userRepository).updateRatings(captor.capture());
+        Map<Long, Integer> ratings = captor.getValue().stream()
+                .collect(Collectors.toMap(User::getId, User::getRating));
+        assertEquals(3, ratings.size());
+        assertTrue(ratings.get(3L) > User.INITIAL_RATING);
+        assertEquals(Set.of(1L), ratedGames);
+    }
+
+    @Test
+    void applyPendingResults_GameRatedByAnotherNode_IsSkipped() {
+        when(userRepository.findRatingsForUpdate(anyCollection())).thenReturn(List.of(
+                User.builder().id(1L).build(), User.builder().id(2L).build()));
+        ratedGames.add(10L);
+        ratingService.onGameCompleted(new GameCompletedEvent(10L, 1L, 2L, 1L, LocalDateTime.now()));
+
+        assertEquals(0, ratingService.applyPendingResults());
+
+        verify(userRepository, never()).updateRatings(anyCollection());
+        assertEquals(0, ratingService.pendingResults());
+    }
+
+    @Test
+    void recomputeAll_GameCommittedAfterItsPageWasRead_IsStillRated() {
+        ResultView replayed = result(1L, 1L, 2L, 1L, LocalDateTime.now().minusSeconds(2));
+        when(gameRepository.findResults(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(replayed));
+        ratingService.recomputeAll();
+        when(userRepository.findRatingsForUpdate(anyCollection())).thenReturn(List.of(
+                User.builder().id(1L).build(), User.builder().id(2L).build()));
+
+        // Ended before the replay read its page but committed after, so the replay missed it
+        ratingService.onGameCompleted(new GameCompletedEvent(2L, 1L, 2L, 2L, replayed.getCompletedAt().minusSeconds(1)));
+
+        assertEquals(1, ratingService.applyPendingResults());
+    }
+
+    @Test
+    void applyPendingResults_GamesOneAtATime_MatchReplay() {
+        Glicko2 glicko = new Glicko2(0.5);
+        Glicko2.Rating initial = new Glicko2.Rating(User.INITIAL_RATING,
+                User.INITIAL_RATING_DEVIATION, User.INITIAL_RATING_VOLATILITY);
+        Glicko2.Rating alice = initial;
+        Glicko2.Rating bob = initial;
+        User aliceRow = User.builder().id(1L).build();
+        User bobRow = User.builder().id(2L).build();
+        when(userRepository.findRatingsForUpdate(anyCollection())).thenReturn(List.of(aliceRow, bobRow));
+
+        for (long game = 1; game <= 20; game++) {
+            Long winner = game % 3 == 0 ? null : game % 3 == 1 ? 1L : 2L;
+            ratingService.onGameCompleted(new GameCompletedEvent(game, 1L, 2L, winner, LocalDateTime.now()));
+            ratingService.applyPendingResults();
+            double score = winner == null ? 0.5 : winner == 1L ? 1 : 0;
+            Glicko2.Rating before = alice;
+            alice = glicko.update(alice, bob, score);
+            bob = glicko.update(bob, before, 1 - score);
+        }
+
+        assertEquals(alice.rating(), aliceRow.getExactRating(), 1e-9);
+        assertEquals(bob.rating(), bobRow.getExactRating(), 1e-9);
+        assertEquals((int) Math.round(alice.rating()), aliceRow.getRating());
+    }
+
+    private static ResultView result(Long id, Long whitePlayerId, Long blackPlayerId, Long winnerId,
+                                     LocalDateTime completedAt) {
+        return new ResultView() {
+            public Long getId() { return id; }
+            public Long getWhitePlayerId() { return whitePlayerId; }
+            public Long getBlackPlayerId() { return blackPlayerId; }
+            public Long getWinnerId() { return winnerId; }
+            public LocalDateTime getCompletedAt() { return completedAt; }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.chess.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void advance_FiresDueTimeoutsAcrossRevolutions() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.schedule("soon", 250);
+        wheel.schedule("next-lap", 1_050);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 300);
+        wheel.schedule("overdue", -500);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertEquals(List.of("overdue"), wheel.advance(0));
+        assertEquals(List.of(), wheel.advance(299));
+        assertEquals(List.of("soon"), wheel.advance(300));
+        // "next-lap" shares a bucket with a tick already passed but is only due one revolution later
+        assertEquals(List.of(), wheel.advance(1_000));
+        assertEquals(List.of("next-lap"), wheel.advance(1_100));
+        assertEquals(0, wheel.size());
+        assertFalse(wheel.cancel(cancelled));
+    }
+
+    @Test
+    void advance_HandlesManyClocks() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(100, 512, 0);
+        List<TimingWheel.Timeout<Integer>> timeouts = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            timeouts.add(wheel.schedule(i, 1_000 + (i % 600_000)));
+        }
+        // Every other clock is pressed and rescheduled before it runs out
+        for (int i = 0; i < timeouts.size(); i += 2) {
+            wheel.cancel(timeouts.get(i));
+            wheel.schedule(i, 700_000);
+        }
+
+        List<Integer> expired = wheel.advance(650_000);
+
+        assertEquals(50_000, expired.size());
+        assertTrue(expired.stream().allMatch(i -> i % 2 == 1));
+        assertEquals(50_000, wheel.size());
+    }
+}
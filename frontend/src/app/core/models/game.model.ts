@@ -10,6 +10,11 @@ export interface Game {
   createdAt: string;
   completedAt?: string;
   winnerId?: number;
+  clockBaseMillis?: number;
+  clockIncrementMillis?: number;
+  whiteClockMillis?: number;
+  blackClockMillis?: number;
+  turnStartedAt?: string;
   moves?: Move[];
 }
 
@@ -38,6 +43,14 @@ export interface Move {
   san: string;
   moveNumber: number;
   createdAt: string;
+  whiteClockMillis?: number;
+  blackClockMillis?: number;
+}
+
+export interface GameHistoryPage {
+  games: Game[];
+  nextCursor: string | null;
+  hasMore: boolean;
 }
 
 export interface MoveRequest {
@@ -4,6 +4,7 @@ export interface User {
   displayName: string;
   online: boolean;
   lastSeen?: string;
+  rating?: number;
 }
 
 export interface AuthResponse {
@@ -23,5 +24,14 @@ export interface RegisterRequest {
   displayName: string;
 }
 
+export interface PresenceEvent {
+  type: 'JOINED' | 'LEFT' | 'NODE_DOWN';
+  user?: User;
+  node: string;
+  sequence: number;
+}
 
-
+export interface PresenceSnapshot {
+  users: User[];
+  nodes: { [node: string]: { sequence: number; userIds: number[] } };
+}
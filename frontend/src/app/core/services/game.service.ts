@@ -1,7 +1,7 @@
 import { Injectable, signal } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Game, Move, MoveRequest } from '../models/game.model';
+import { Game, GameHistoryPage, Move, MoveRequest } from '../models/game.model';
 import { environment } from '../../../environments/environment';
 
 @Injectable({
@@ -30,8 +30,14 @@ export class GameService {
     return this.http.get<Game>(`${this.API_URL}/active`);
   }
 
-  getUserGames(): Observable<Game[]> {
-    return this.http.get<Game[]>(`${this.API_URL}/history`);
+  getGameHistory(cursor?: string, limit = 20, includeMoves = false): Observable<GameHistoryPage> {
+    let params = new HttpParams()
+      .set('limit', limit.toString())
+      .set('includeMoves', includeMoves.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    return this.http.get<GameHistoryPage>(`${this.API_URL}/history`, { params });
   }
 }
 
@@ -65,6 +65,7 @@ export class GameComponent implements OnInit, OnDestroy {
     if (id) {
       this.wsService.unsubscribe(`/topic/game/${id}/moves`);
       this.wsService.unsubscribe(`/topic/game/${id}/resigned`);
+      this.wsService.unsubscribe(`/topic/game/${id}/ended`);
     }
   }
 
@@ -96,6 +97,9 @@ export class GameComponent implements OnInit, OnDestroy {
     
     this.gameService.getGameMoves(this.gameId(), lastMoveId).subscribe({
       next: (newMoves) => {
+        // Moves not yet written to the database have no id, so compare by move number
+        const lastMoveNumber = currentMoves.length > 0 ? currentMoves[currentMoves.length - 1].moveNumber : 0;
+        newMoves = newMoves.filter(m => m.moveNumber > lastMoveNumber);
         if (newMoves.length > 0) {
           console.log('Fetched', newMoves.length, 'missed moves');
           this.moves.update(moves => [...moves, ...newMoves]);
@@ -132,8 +136,8 @@ export class GameComponent implements OnInit, OnDestroy {
         // Add move to list
         this.moves.update(moves => {
           // Check if move already exists (avoid duplicates)
-          if (moves.find(m => m.id === move.id)) {
-            console.log('⚠️ Duplicate move ignored:', move.id);
+          if (moves.find(m => m.moveNumber === move.moveNumber)) {
+            console.log('⚠️ Duplicate move ignored:', move.moveNumber);
             return moves;
           }
           console.log('➕ Adding new move to list');
@@ -165,6 +169,24 @@ export class GameComponent implements OnInit, OnDestroy {
         this.handleGameFinished(updatedGame);
       });
 
+      // Subscribe to checkmate and stalemate results detected by the server
+      const endedTopic = `/topic/game/${this.gameId()}/ended`;
+      console.log('Subscribing to:', endedTopic);
+
+      this.wsService.subscribe<Game>(endedTopic, (updatedGame) => {
+        console.log('🏁 GAME ENDED EVENT RECEIVED:', updatedGame);
+        this.handleGameFinished(updatedGame);
+      });
+
+      // Subscribe to flag falls on timed games
+      const timeoutTopic = `/topic/game/${this.gameId()}/timeout`;
+      console.log('Subscribing to:', timeoutTopic);
+
+      this.wsService.subscribe<Game>(timeoutTopic, (updatedGame) => {
+        console.log('⏱️ TIMEOUT EVENT RECEIVED:', updatedGame);
+        this.handleGameFinished(updatedGame);
+      });
+
       // Join game room
       console.log('Joining game room...');
       this.wsService.send(`/app/game/${this.gameId()}/join`);
@@ -234,8 +256,12 @@ export class GameComponent implements OnInit, OnDestroy {
 
     this.game.set(finishedGame);
 
-    const isWinner = finishedGame.winnerId === this.currentUser()?.id;
-    this.gameEndMessage.set(isWinner ? 'You won!' : 'You lost!');
+    if (finishedGame.status === GameStatus.DRAW) {
+      this.gameEndMessage.set('Draw!');
+    } else {
+      const isWinner = finishedGame.winnerId === this.currentUser()?.id;
+      this.gameEndMessage.set(isWinner ? 'You won!' : 'You lost!');
+    }
     this.showGameEndModal.set(true);
   }
 }
@@ -4,7 +4,7 @@ import { Router } from '@angular/router';
 import { HttpClient } from '@angular/common/http';
 import { AuthService } from '../core/services/auth.service';
 import { WebSocketService } from '../core/services/websocket.service';
-import { User } from '../core/models/user.model';
+import { PresenceEvent, PresenceSnapshot, User } from '../core/models/user.model';
 import { Invitation } from '../core/models/invitation.model';
 import { Game } from '../core/models/game.model';
 import { environment } from '../../environments/environment';
@@ -22,6 +22,13 @@ export class LobbyComponent implements OnInit, OnDestroy {
   pendingInvitation = signal<Invitation | null>(null);
   pendingInvitations = signal<Invitation[]>([]);
   loading = signal(true);
+  searching = signal(false);
+
+  // Presence deltas received before the snapshot are buffered, then replayed on top of it.
+  // Each backend node numbers its own events, so sequences and users are tracked per node.
+  private presenceNodes: Map<string, { sequence: number; userIds: Set<number> }> | null = null;
+  private presenceUsers = new Map<number, User>();
+  private bufferedPresenceEvents: PresenceEvent[] = [];
 
   constructor(
     private authService: AuthService,
@@ -32,14 +39,18 @@ export class LobbyComponent implements OnInit, OnDestroy {
 
   ngOnInit(): void {
     this.initializeWebSocket();
-    this.loadOnlinePlayers();
     this.checkActiveGame();
   }
 
   ngOnDestroy(): void {
+    if (this.searching()) {
+      this.cancelSearch();
+    }
     this.wsService.unsubscribe('/topic/presence');
+    this.wsService.unsubscribe('/app/lobby/presence');
     this.wsService.unsubscribe('/user/queue/invitations');
     this.wsService.unsubscribe('/user/queue/game-start');
+    this.wsService.unsubscribe('/user/queue/errors');
   }
 
   private async initializeWebSocket(): Promise<void> {
@@ -48,12 +59,12 @@ export class LobbyComponent implements OnInit, OnDestroy {
       await this.wsService.connect();
       console.log('WebSocket connected successfully!');
       
-      // Subscribe to presence updates
+      // Subscribe to presence deltas, then request the snapshot they apply to
       console.log('Subscribing to /topic/presence');
-      this.wsService.subscribe<User[]>('/topic/presence', (users) => {
-        console.log('Presence update received:', users);
-        this.onlinePlayers.set(users.filter(u => u.id !== this.currentUser()?.id));
+      this.wsService.subscribe<PresenceEvent>('/topic/presence', (event) => {
+        this.onPresenceEvent(event);
       });
+      this.requestPresenceSnapshot();
 
       // Subscribe to invitations
       console.log('Subscribing to /user/queue/invitations');
@@ -66,35 +77,103 @@ export class LobbyComponent implements OnInit, OnDestroy {
         });
       });
 
+      // Subscribe to expired invitations, sent or received
+      console.log('Subscribing to /user/queue/invitation-expired');
+      this.wsService.subscribe<Invitation>('/user/queue/invitation-expired', (invitation) => {
+        console.log('Invitation expired:', invitation);
+        this.pendingInvitations.update(list => list.filter(i => i.id !== invitation.id));
+        if (this.pendingInvitation()?.id === invitation.id) {
+          this.pendingInvitation.set(null);
+        }
+      });
+
       // Subscribe to game start
       console.log('Subscribing to /user/queue/game-start');
       this.wsService.subscribe<Game>('/user/queue/game-start', (game) => {
         console.log('Game started:', game);
+        this.searching.set(false);
         this.router.navigate(['/game', game.id]);
       });
 
-      // Notify presence
-      console.log('Sending presence notification');
-      this.wsService.send('/app/lobby/presence');
+      // Matchmaking gave up on starting a game
+      this.wsService.subscribe<{ details: string }>('/user/queue/errors', (error) => {
+        console.error('Matchmaking failed:', error.details);
+        this.searching.set(false);
+      });
     } catch (error) {
       console.error('WebSocket connection failed', error);
       alert('WebSocket connection failed. Please refresh the page.');
     }
   }
 
-  private loadOnlinePlayers(): void {
-    this.http.get<User[]>(`${environment.apiUrl}/api/lobby/players`).subscribe({
-      next: (users) => {
-        this.onlinePlayers.set(users.filter(u => u.id !== this.currentUser()?.id));
-        this.loading.set(false);
-      },
-      error: (err) => {
-        console.error('Failed to load players', err);
-        this.loading.set(false);
-      }
+  private requestPresenceSnapshot(): void {
+    this.presenceNodes = null;
+    this.wsService.unsubscribe('/app/lobby/presence');
+    this.wsService.subscribe<PresenceSnapshot>('/app/lobby/presence', (snapshot) => {
+      console.log('Presence snapshot received:', snapshot);
+      this.presenceUsers = new Map(snapshot.users.map(u => [u.id, u]));
+      this.presenceNodes = new Map(Object.entries(snapshot.nodes).map(
+        ([node, state]) => [node, { sequence: state.sequence, userIds: new Set(state.userIds) }]));
+      this.updateOnlinePlayers();
+      this.loading.set(false);
+
+      const buffered = this.bufferedPresenceEvents;
+      this.bufferedPresenceEvents = [];
+      buffered.forEach(event => this.onPresenceEvent(event));
     });
   }
 
+  private onPresenceEvent(event: PresenceEvent): void {
+    if (this.presenceNodes === null) {
+      this.bufferedPresenceEvents.push(event);
+      return;
+    }
+    if (event.type === 'NODE_DOWN') {
+      // Sent by every remaining node, so it may arrive more than once
+      if (this.presenceNodes.delete(event.node)) {
+        this.updateOnlinePlayers();
+      }
+      return;
+    }
+
+    let node = this.presenceNodes.get(event.node);
+    if (!node) {
+      // A node that started after the snapshot was taken
+      node = { sequence: event.sequence - 1, userIds: new Set<number>() };
+      this.presenceNodes.set(event.node, node);
+    }
+    if (event.sequence <= node.sequence) {
+      return; // Already reflected in the snapshot
+    }
+    if (event.sequence > node.sequence + 1) {
+      console.warn('Missed presence events, re-syncing from snapshot');
+      this.bufferedPresenceEvents.push(event);
+      this.requestPresenceSnapshot();
+      return;
+    }
+
+    node.sequence = event.sequence;
+    const user = event.user!;
+    if (event.type === 'JOINED') {
+      node.userIds.add(user.id);
+      this.presenceUsers.set(user.id, user);
+    } else {
+      node.userIds.delete(user.id);
+    }
+    this.updateOnlinePlayers();
+  }
+
+  // A user connected to several nodes stays online until every node reports them gone
+  private updateOnlinePlayers(): void {
+    const online = new Set<number>();
+    this.presenceNodes?.forEach(node => node.userIds.forEach(id => online.add(id)));
+    const currentUserId = this.currentUser()?.id;
+    this.onlinePlayers.set([...online]
+      .filter(id => id !== currentUserId)
+      .map(id => this.presenceUsers.get(id))
+      .filter((user): user is User => user !== undefined));
+  }
+
   private checkActiveGame(): void {
     this.http.get<Game>(`${environment.apiUrl}/api/game/active`).subscribe({
       next: (game) => {
@@ -121,6 +200,17 @@ export class LobbyComponent implements OnInit, OnDestroy {
     alert(`Invitation sent to ${player.displayName}!`);
   }
 
+  findMatch(): void {
+    // An empty request uses the server's default time control
+    this.wsService.send('/app/matchmaking/join', {});
+    this.searching.set(true);
+  }
+
+  cancelSearch(): void {
+    this.wsService.send('/app/matchmaking/leave', {});
+    this.searching.set(false);
+  }
+
   acceptInvitation(): void {
     const invitation = this.pendingInvitation();
     if (invitation) {